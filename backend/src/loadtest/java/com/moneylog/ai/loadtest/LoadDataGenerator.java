@@ -0,0 +1,85 @@
+package com.moneylog.ai.loadtest;
+
+import com.moneylog.ai.config.DataInitializer;
+import com.moneylog.ai.config.DataInitializer.DemoHolding;
+import com.moneylog.ai.money.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scales {@link DataInitializer}'s demo portfolio to N users x M months x K holdings.
+ * The schema has no user column, so each user's holdings are told apart by a name
+ * prefix; amounts drift month to month from a fixed seed, so runs are reproducible.
+ */
+final class LoadDataGenerator {
+
+    private static final String INSERT_POSITION =
+            "INSERT INTO asset_positions (month, name, category, amount, monthly_gain, total_gain) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_RECORD =
+            "INSERT INTO historical_asset_records (month, asset_name, category, amount, monthly_gain, total_gain, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestConfig config;
+
+    LoadDataGenerator(JdbcTemplate jdbcTemplate, LoadTestConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+    }
+
+    /**
+     * @return the generated months, oldest first, ending with the current month
+     */
+    List<String> generate() {
+        List<String> months = new ArrayList<>(config.months());
+        YearMonth current = YearMonth.now();
+        for (int i = config.months() - 1; i >= 0; i--) {
+            months.add(current.minusMonths(i).toString());
+        }
+
+        Random random = new Random(config.seed());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> positionRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> recordRows = new ArrayList<>(BATCH_SIZE);
+        for (int user = 0; user < config.users(); user++) {
+            for (int k = 0; k < config.holdings(); k++) {
+                DemoHolding template = DataInitializer.DEMO_HOLDINGS.get(k % DataInitializer.DEMO_HOLDINGS.size());
+                String name = "u" + user + "-" + template.name() + (k < DataInitializer.DEMO_HOLDINGS.size() ? "" : " #" + k);
+                long amount = template.amount();
+                long totalGain = 0;
+                for (String month : months) {
+                    long monthlyGain = Math.round(amount * (random.nextGaussian() * 0.03));
+                    amount = Math.max(0, amount + monthlyGain);
+                    totalGain += monthlyGain;
+
+                    positionRows.add(new Object[]{month, name, template.category().name(),
+                            Money.toMajor(amount), Money.toMajor(monthlyGain), Money.toMajor(totalGain)});
+                    recordRows.add(new Object[]{month, name, template.category().name(),
+                            Money.toMajor(amount), Money.toMajor(monthlyGain), Money.toMajor(totalGain), createdAt});
+                    if (recordRows.size() == BATCH_SIZE) {
+                        flush(positionRows, recordRows);
+                    }
+                }
+            }
+        }
+        flush(positionRows, recordRows);
+        return months;
+    }
+
+    private void flush(List<Object[]> positionRows, List<Object[]> recordRows) {
+        if (!recordRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_POSITION, positionRows);
+            jdbcTemplate.batchUpdate(INSERT_RECORD, recordRows);
+            positionRows.clear();
+            recordRows.clear();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.moneylog.ai.loadtest;
+
+import com.moneylog.ai.entity.AssetCategory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a weighted mix of API calls from {@code concurrency} closed-loop workers, each
+ * acting as one of the generated users, and records per-endpoint latencies.
+ */
+final class LoadDriver {
+
+    /** Existing rows the write scenarios update; parallel arrays. */
+    record Rows(long[] ids, String[] months, String[] names, AssetCategory[] categories) {
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final List<String> months;
+    private final Rows records;
+    private final Rows positions;
+    private final String[] scenarios;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(String baseUrl, LoadTestConfig config, List<String> months, Rows records, Rows positions) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.months = months;
+        this.records = records;
+        this.positions = positions;
+        this.scenarios = config.mix().keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += config.mix().get(scenarios[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Sends {@code requests} requests and returns the latency samples per scenario, in mix order.
+     */
+    Map<String, Samples> run(int requests, long seed) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(requests);
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency());
+        List<Future<Map<String, Samples>>> futures = new ArrayList<>();
+        for (int w = 0; w < config.concurrency(); w++) {
+            Random random = new Random(seed + w);
+            int user = w % config.users();
+            futures.add(workers.submit(() -> work(remaining, random, user)));
+        }
+
+        Map<String, Samples> merged = new LinkedHashMap<>();
+        for (String scenario : scenarios) {
+            merged.put(scenario, new Samples());
+        }
+        try {
+            for (Future<Map<String, Samples>> future : futures) {
+                future.get().forEach((scenario, samples) -> merged.get(scenario).addAll(samples));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return merged;
+    }
+
+    private Map<String, Samples> work(AtomicInteger remaining, Random random, int user) {
+        Map<String, Samples> samples = new LinkedHashMap<>();
+        while (remaining.getAndDecrement() > 0) {
+            String scenario = pickScenario(random);
+            HttpRequest request = buildRequest(scenario, random, user);
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                ok = response.statusCode() < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            samples.computeIfAbsent(scenario, s -> new Samples()).add(System.nanoTime() - start, ok);
+        }
+        return samples;
+    }
+
+    private String pickScenario(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = Arrays.binarySearch(cumulativeWeights, r + 1);
+        return scenarios[i >= 0 ? i : -i - 1];
+    }
+
+    private HttpRequest buildRequest(String scenario, Random random, int user) {
+        String month = months.get(random.nextInt(months.size()));
+        return switch (scenario) {
+            case "records" -> get("/api/historical-assets/" + month, user);
+            case "history" -> get("/api/historical-assets/history", user);
+            case "range" -> {
+                int from = random.nextInt(Math.max(1, months.size() - 2));
+                int to = Math.min(months.size() - 1, from + 2);
+                yield get("/api/historical-assets/range?from=" + months.get(from) + "&to=" + months.get(to), user);
+            }
+            case "positions" -> get("/api/history/" + month, user);
+            case "position-history" -> get("/api/history", user);
+            case "record-update" -> {
+                int i = random.nextInt(records.ids().length);
+                yield send("PUT", "/api/historical-assets/" + records.months()[i] + "/" + records.ids()[i],
+                        body(records.names()[i], records.categories()[i], random), user);
+            }
+            case "record-insert" -> send("POST", "/api/historical-assets/" + month,
+                    body("u" + user + "-new", AssetCategory.Cash, random), user);
+            case "position-update" -> {
+                int i = random.nextInt(positions.ids().length);
+                yield send("PUT", "/api/history/" + positions.months()[i] + "/" + positions.ids()[i],
+                        body(positions.names()[i], positions.categories()[i], random), user);
+            }
+            case "diary" -> get("/api/diaries/" + month, user);
+            default -> throw new IllegalArgumentException("Unknown loadtest.mix scenario: " + scenario);
+        };
+    }
+
+    private HttpRequest get(String path, int user) {
+        return builder(path, user).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String json, int user) {
+        return builder(path, user)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path, int user) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-Client-Id", "user-" + user);
+    }
+
+    private static String body(String name, AssetCategory category, Random random) {
+        long amount = 1_000_00L + random.nextInt(100_000_00);
+        long monthlyGain = random.nextInt(2_000_00) - 1_000_00L;
+        return String.format("{\"name\":\"%s\",\"category\":\"%s\",\"amount\":%s,\"monthlyGain\":%s,\"totalGain\":%s}",
+                name.replace("\"", "\\\""), category.name(), decimal(amount), decimal(monthlyGain), decimal(monthlyGain * 3));
+    }
+
+    private static String decimal(long minor) {
+        return (minor < 0 ? "-" : "") + Math.abs(minor) / 100 + "." + String.format("%02d", Math.abs(minor) % 100);
+    }
+
+    /** Growable latency buffer; one per worker and scenario, merged after the run. */
+    static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long latencyNanos, boolean ok) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i], true);
+            }
+            errors += other.errors;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.moneylog.ai.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load-test parameters, read from {@code -Dloadtest.*} system properties.
+ */
+record LoadTestConfig(
+        int users,
+        int months,
+        int holdings,
+        int concurrency,
+        int requests,
+        int warmupRequests,
+        String database,
+        long geminiLatencyMillis,
+        long seed,
+        Map<String, Integer> mix) {
+
+    // Roughly the frontend's traffic: portfolio views and history dominate, savePortfolio edits follow
+    static final String DEFAULT_MIX =
+            "records:40,history:20,range:5,positions:10,position-history:5,record-update:12,record-insert:3,position-update:5,diary:0";
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 20),
+                Integer.getInteger("loadtest.months", 24),
+                Integer.getInteger("loadtest.holdings", 10),
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.requests", 20_000),
+                Integer.getInteger("loadtest.warmup", 2_000),
+                System.getProperty("loadtest.db", "mem"),
+                Long.getLong("loadtest.gemini.latency-ms", 300),
+                Long.getLong("loadtest.seed", 42),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)));
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(parts[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights");
+        }
+        return mix;
+    }
+
+    String describe() {
+        return String.format("users=%d months=%d holdings=%d concurrency=%d requests=%d warmup=%d db=%s gemini-latency=%dms mix=%s",
+                users, months, holdings, concurrency, requests, warmupRequests, database, geminiLatencyMillis, mix);
+    }
+}
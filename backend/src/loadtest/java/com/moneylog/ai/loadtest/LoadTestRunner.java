@@ -0,0 +1,169 @@
+package com.moneylog.ai.loadtest;
+
+import com.moneylog.ai.MoneyLogAiApplication;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.service.HistoryColumnStore;
+import com.moneylog.ai.service.PrecomputeService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the backend against embedded H2 (MySQL mode) and a stub Gemini server, seeds
+ * N users x M months x K holdings, replays the configured request mix and prints
+ * throughput and latency percentiles. Each run is also appended to
+ * target/loadtest/results.csv so changes can be compared against a baseline.
+ *
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dloadtest.users=50 -Dloadtest.concurrency=32
+ * </pre>
+ *
+ * Any Spring property passed as {@code -D} (e.g. {@code -Dmoneylog.ratelimit.enabled=true})
+ * takes precedence over the harness defaults.
+ */
+public final class LoadTestRunner {
+
+    private static final Path RESULTS = Path.of("target", "loadtest", "results.csv");
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test: " + config.describe());
+
+        try (StubGeminiServer gemini = new StubGeminiServer(config.geminiLatencyMillis());
+             ConfigurableApplicationContext context = SpringApplication.run(MoneyLogAiApplication.class, springArgs(config, gemini))) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            long seedStart = System.nanoTime();
+            List<String> months = new LoadDataGenerator(jdbcTemplate, config).generate();
+            // Start from the steady state production reaches: aggregates precomputed, column store loaded.
+            // The generator bypasses change_log, so the aggregates start over rather than look current
+            PrecomputeService precomputeService = context.getBean(PrecomputeService.class);
+            precomputeService.invalidate(months);
+            precomputeService.refreshHistoryAggregates();
+            context.getBean(HistoryColumnStore.class).reload();
+            System.out.printf("Seeded %d records in %d ms%n",
+                    (long) config.users() * config.months() * config.holdings(), (System.nanoTime() - seedStart) / 1_000_000);
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, config, months,
+                    loadRows(jdbcTemplate, "SELECT id, month, asset_name, category FROM historical_asset_records"),
+                    loadRows(jdbcTemplate, "SELECT id, month, name, category FROM asset_positions"));
+
+            driver.run(config.warmupRequests(), config.seed() - 1);
+            long start = System.nanoTime();
+            Map<String, LoadDriver.Samples> results = driver.run(config.requests(), config.seed());
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report(config, results, seconds);
+        }
+    }
+
+    /**
+     * Harness defaults as command-line arguments, which outrank application.properties;
+     * skipped for any key also set as a system property so -D overrides still win.
+     */
+    private static String[] springArgs(LoadTestConfig config, StubGeminiServer gemini) {
+        String url = "file".equals(config.database())
+                ? "jdbc:h2:file:./target/loadtest/moneylog;MODE=MySQL;NON_KEYWORDS=MONTH"
+                : "jdbc:h2:mem:loadtest;MODE=MySQL;NON_KEYWORDS=MONTH;DB_CLOSE_DELAY=-1";
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url", url);
+        defaults.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("moneylog.seed.enabled", "false");
+        defaults.put("moneylog.ratelimit.enabled", "false");
+        defaults.put("gemini.api.key", "loadtest");
+        defaults.put("gemini.api.base-url", gemini.baseUrl());
+        defaults.put("gemini.api.min-interval-ms", "0");
+        defaults.put("logging.level.com.moneylog", "INFO");
+
+        List<String> args = new ArrayList<>();
+        defaults.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                args.add("--" + key + "=" + value);
+            }
+        });
+        return args.toArray(new String[0]);
+    }
+
+    private static LoadDriver.Rows loadRows(JdbcTemplate jdbcTemplate, String sql) {
+        List<Object[]> rows = jdbcTemplate.query(sql, (rs, i) -> new Object[]{
+                rs.getLong(1), rs.getString(2), rs.getString(3), AssetCategory.valueOf(rs.getString(4))});
+        int n = rows.size();
+        long[] ids = new long[n];
+        String[] months = new String[n];
+        String[] names = new String[n];
+        AssetCategory[] categories = new AssetCategory[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Long) row[0];
+            months[i] = (String) row[1];
+            names[i] = (String) row[2];
+            categories[i] = (AssetCategory) row[3];
+        }
+        return new LoadDriver.Rows(ids, months, names, categories);
+    }
+
+    private static void report(LoadTestConfig config, Map<String, LoadDriver.Samples> results, double seconds) throws IOException {
+        LoadDriver.Samples total = new LoadDriver.Samples();
+        results.values().forEach(total::addAll);
+
+        String runAt = LocalDateTime.now().withNano(0).toString();
+        List<String> csv = new ArrayList<>();
+        System.out.printf("%n%-18s %8s %7s %9s %9s %9s %9s %9s%n",
+                "scenario", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        Map<String, LoadDriver.Samples> rows = new LinkedHashMap<>(results);
+        rows.put("TOTAL", total);
+        rows.forEach((scenario, samples) -> {
+            if (samples.size() == 0) {
+                return;
+            }
+            long[] sorted = samples.sorted();
+            double throughput = samples.size() / seconds;
+            double p50 = percentile(sorted, 50), p95 = percentile(sorted, 95), p99 = percentile(sorted, 99);
+            double max = sorted[sorted.length - 1] / 1e6;
+            System.out.printf("%-18s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    scenario, samples.size(), samples.errors(), throughput, p50, p95, p99, max);
+            csv.add(String.format("%s,\"%s\",%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f",
+                    runAt, config.describe(), scenario, samples.size(), samples.errors(), throughput, p50, p95, p99, max));
+        });
+        System.out.printf("%nWall time %.1f s; results appended to %s%n", seconds, RESULTS.toAbsolutePath());
+
+        Files.createDirectories(RESULTS.getParent());
+        boolean newFile = Files.notExists(RESULTS);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(RESULTS, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (newFile) {
+                out.println("run_at,config,scenario,count,errors,req_per_s,p50_ms,p95_ms,p99_ms,max_ms");
+            }
+            csv.forEach(out::println);
+        }
+    }
+
+    /** Nearest-rank percentile in milliseconds. */
+    private static double percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,78 @@
+package com.moneylog.ai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Gemini generateContent endpoint. Answers every prompt with a
+ * short diary per month it mentions, in the "=== YYYY-MM ===" layout batched prompts ask
+ * for, after a fixed delay that models upstream latency.
+ */
+final class StubGeminiServer implements AutoCloseable {
+
+    private static final Pattern MONTH = Pattern.compile("\\d{4}-\\d{2}");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long latencyMillis;
+
+    StubGeminiServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String prompt;
+        try (InputStream body = exchange.getRequestBody()) {
+            prompt = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        TreeSet<String> months = new TreeSet<>();
+        Matcher matcher = MONTH.matcher(prompt);
+        while (matcher.find()) {
+            months.add(matcher.group());
+        }
+        StringBuilder text = new StringBuilder();
+        for (String month : months) {
+            text.append("=== ").append(month).append(" ===\\n")
+                    .append("Stub diary for ").append(month).append(".\\n");
+        }
+        byte[] response = ("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text + "\"}]}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
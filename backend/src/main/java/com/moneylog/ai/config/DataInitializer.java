@@ -1,112 +1,155 @@
 package com.moneylog.ai.config;
 
 import com.moneylog.ai.entity.AssetCategory;
-import com.moneylog.ai.entity.AssetPosition;
-import com.moneylog.ai.entity.HistoricalAssetRecord;
+import com.moneylog.ai.money.Money;
 import com.moneylog.ai.repository.AssetPositionRepository;
 import com.moneylog.ai.repository.HistoricalAssetRecordRepository;
+import com.moneylog.ai.service.HistoryColumnStore;
+import com.moneylog.ai.service.PrecomputeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Seeds demo data for the current and two previous months.
+ * Runs off the startup path: once the app is accepting traffic, on the async executor,
+ * and only when {@code moneylog.seed.enabled} is true (the prod profile turns it off).
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    // Same demo dataset for both tables; amounts in fen. Also the template for the load-test generator
+    public static final List<DemoHolding> DEMO_HOLDINGS = List.of(
+            new DemoHolding("中证500指数A", AssetCategory.AH_Stock, 120_000_00L, 3_200_00L, 18_000_00L),
+            new DemoHolding("标普500指数", AssetCategory.US_Stock, 80_000_00L, 2_800_00L, 15_500_00L),
+            new DemoHolding("黄金ETF", AssetCategory.Commodity, 50_000_00L, 900_00L, 6_000_00L),
+            new DemoHolding("短债基金A", AssetCategory.Bond, 60_000_00L, 400_00L, 2_300_00L),
+            new DemoHolding("余额宝", AssetCategory.Cash, 30_000_00L, 100_00L, 300_00L)
+    );
+
+    private static final String INSERT_POSITION =
+            "INSERT INTO asset_positions (month, name, category, amount, monthly_gain, total_gain) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_RECORD =
+            "INSERT INTO historical_asset_records (month, asset_name, category, amount, monthly_gain, total_gain, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
 
     private final AssetPositionRepository assetPositionRepository;
     private final HistoricalAssetRecordRepository historicalAssetRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HistoryColumnStore historyColumnStore;
+    private final PrecomputeService precomputeService;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    @Value("${moneylog.seed.enabled:true}")
+    private boolean seedEnabled;
+
+    @Async
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !seedEnabled) {
+            return;
+        }
+        // Readiness can flip back and forth; seed at most once per process
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            seedDemoData();
+        } catch (Exception e) {
+            log.error("Demo data initialization failed", e);
+        }
+    }
 
-    @Override
-    public void run(String... args) {
-        // If both tables already have data, skip entirely
+    /**
+     * Only touches an empty database: skipped entirely once both tables hold data, so
+     * real user data never gets demo holdings mixed in. Otherwise idempotent: one query
+     * per table to find which demo months already exist, then one batched insert per
+     * table for the missing ones.
+     */
+    public void seedDemoData() {
         if (assetPositionRepository.count() > 0 && historicalAssetRecordRepository.count() > 0) {
             log.info("Skipping demo data initialization, existing data found in both tables");
             return;
         }
 
-        log.info("Initializing demo data for MoneyLog AI (idempotent)...");
-
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM");
         LocalDate now = LocalDate.now();
+        List<String> months = List.of(
+                now.format(MONTH_FORMAT),
+                now.minusMonths(1).format(MONTH_FORMAT),
+                now.minusMonths(2).format(MONTH_FORMAT));
 
-        // Seed current month and two previous months
-        String thisMonth = now.format(fmt);
-        String prevMonth1 = now.minusMonths(1).format(fmt);
-        String prevMonth2 = now.minusMonths(2).format(fmt);
+        Boolean seededRecords = transactionTemplate.execute(status -> {
+            Set<String> positionMonths = new HashSet<>(assetPositionRepository.findMonthsIn(months));
+            Set<String> recordMonths = new HashSet<>(historicalAssetRecordRepository.findMonthsIn(months));
 
-        // For each month, ensure positions and historical records exist (avoid duplicates)
-        ensureMonthData(thisMonth);
-        ensureMonthData(prevMonth1);
-        ensureMonthData(prevMonth2);
-
-        log.info("Demo data initialization finished.");
-    }
+            List<Object[]> positionRows = new ArrayList<>();
+            List<Object[]> recordRows = new ArrayList<>();
+            Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+            for (String month : months) {
+                if (!positionMonths.contains(month)) {
+                    for (DemoHolding h : DEMO_HOLDINGS) {
+                        positionRows.add(new Object[]{month, h.name(), h.category().name(),
+                                Money.toMajor(h.amount()), Money.toMajor(h.monthlyGain()), Money.toMajor(h.totalGain())});
+                    }
+                }
+                if (!recordMonths.contains(month)) {
+                    for (DemoHolding h : DEMO_HOLDINGS) {
+                        recordRows.add(new Object[]{month, h.name(), h.category().name(),
+                                Money.toMajor(h.amount()), Money.toMajor(h.monthlyGain()), Money.toMajor(h.totalGain()),
+                                createdAt});
+                    }
+                }
+            }
 
-    private void ensureMonthData(String month) {
-        // If asset_positions for this month is missing, create them
-        if (!assetPositionRepository.existsByMonth(month)) {
-            log.debug("Creating asset_positions for month: {}", month);
-            createPositionForMonth(month, true);
-        } else {
-            log.debug("asset_positions already exist for month: {}", month);
-        }
+            if (positionRows.isEmpty() && recordRows.isEmpty()) {
+                log.info("Skipping demo data initialization, existing data found for {}", months);
+                return false;
+            }
 
-        // If historical_asset_records for this month is missing, create them
-        if (!historicalAssetRecordRepository.existsByMonth(month)) {
-            log.debug("Creating historical_asset_records for month: {}", month);
-            createPositionForMonth(month, false);
-        } else {
-            log.debug("historical_asset_records already exist for month: {}", month);
-        }
-    }
+            log.info("Seeding demo data: {} asset_positions, {} historical_asset_records",
+                    positionRows.size(), recordRows.size());
+            if (!positionRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_POSITION, positionRows);
+            }
+            if (!recordRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_RECORD, recordRows);
+            }
+            return !recordRows.isEmpty();
+        });
 
-    private void createPositionForMonth(String month, boolean createAssetPosition) {
-        // Use the same demo dataset as before
-        if (createAssetPosition) {
-            // AssetPosition entries
-            createPositionEntity(month, "中证500指数A", AssetCategory.AH_Stock, 120_000d, 3_200d, 18_000d, true);
-            createPositionEntity(month, "标普500指数", AssetCategory.US_Stock, 80_000d, 2_800d, 15_500d, true);
-            createPositionEntity(month, "黄金ETF", AssetCategory.Commodity, 50_000d, 900d, 6_000d, true);
-            createPositionEntity(month, "短债基金A", AssetCategory.Bond, 60_000d, 400d, 2_300d, true);
-            createPositionEntity(month, "余额宝", AssetCategory.Cash, 30_000d, 100d, 300d, true);
-        } else {
-            // HistoricalAssetRecord entries
-            createPositionEntity(month, "中证500指数A", AssetCategory.AH_Stock, 120_000d, 3_200d, 18_000d, false);
-            createPositionEntity(month, "标普500指数", AssetCategory.US_Stock, 80_000d, 2_800d, 15_500d, false);
-            createPositionEntity(month, "黄金ETF", AssetCategory.Commodity, 50_000d, 900d, 6_000d, false);
-            createPositionEntity(month, "短债基金A", AssetCategory.Bond, 60_000d, 400d, 2_300d, false);
-            createPositionEntity(month, "余额宝", AssetCategory.Cash, 30_000d, 100d, 300d, false);
+        // Batch inserts bypass the change feed, so the column store has to re-read the table
+        // and the precomputed aggregates and diaries no longer match it
+        if (Boolean.TRUE.equals(seededRecords)) {
+            historyColumnStore.reload();
+            precomputeService.invalidate(months);
         }
-    }
 
-    private void createPositionForMonth(String month, String name, AssetCategory category, Double amount, Double monthlyGain, Double totalGain) {
-        // Deprecated helper - kept for compatibility if referenced elsewhere
+        log.info("Demo data initialization finished.");
     }
 
-    private void createPositionEntity(String month, String name, AssetCategory category,
-                                      Double amount, Double monthlyGain, Double totalGain, boolean isAssetPosition) {
-        if (isAssetPosition) {
-            AssetPosition position = new AssetPosition();
-            position.setMonth(month);
-            position.setName(name);
-            position.setCategory(category);
-            position.setAmount(amount);
-            position.setMonthlyGain(monthlyGain);
-            position.setTotalGain(totalGain);
-            assetPositionRepository.save(position);
-        } else {
-            HistoricalAssetRecord record = new HistoricalAssetRecord();
-            record.setMonth(month);
-            record.setAssetName(name);
-            record.setCategory(category);
-            record.setAmount(amount);
-            record.setMonthlyGain(monthlyGain);
-            record.setTotalGain(totalGain);
-            historicalAssetRecordRepository.save(record);
-        }
+    public record DemoHolding(String name, AssetCategory category, long amount, long monthlyGain, long totalGain) {
     }
 }
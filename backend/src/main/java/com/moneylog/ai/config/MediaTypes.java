@@ -0,0 +1,18 @@
+package com.moneylog.ai.config;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Vendor media types offered alongside plain JSON. Smile and CBOR come from the
+ * Jackson data-format modules and need no constants here.
+ */
+public final class MediaTypes {
+
+    /** Parallel arrays (one per column) instead of one JSON object per row. */
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.moneylog.columnar+json";
+
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+    private MediaTypes() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.moneylog.ai.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks how long requests wait for a Hikari connection, as an exponentially weighted
+ * moving average. The average decays while no connections are acquired, so shedding
+ * that starves the pool of samples cannot keep the signal stuck high.
+ */
+@Component
+public class PoolWaitMonitor implements BeanPostProcessor, MetricsTrackerFactory {
+
+    private static final double SAMPLE_WEIGHT = 0.2;
+    private static final long HALF_LIFE_NANOS = 1_000_000_000L;
+
+    private double averageWaitNanos;
+    private long sampledAt = System.nanoTime();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null) {
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                record(elapsedAcquiredNanos);
+            }
+        };
+    }
+
+    public synchronized double getAverageWaitMillis() {
+        return decayed(System.nanoTime()) / 1_000_000d;
+    }
+
+    private synchronized void record(long waitNanos) {
+        long now = System.nanoTime();
+        averageWaitNanos = decayed(now) * (1 - SAMPLE_WEIGHT) + waitNanos * SAMPLE_WEIGHT;
+        sampledAt = now;
+    }
+
+    private double decayed(long now) {
+        return averageWaitNanos * Math.pow(0.5, (double) (now - sampledAt) / HALF_LIFE_NANOS);
+    }
+}
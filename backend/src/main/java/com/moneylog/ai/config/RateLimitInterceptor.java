@@ -0,0 +1,187 @@
+package com.moneylog.ai.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Admission control for /api: a token bucket per remote address and budget (reads,
+ * writes, AI), answered with 429 and Retry-After when empty. Within an address, each
+ * self-declared {@code X-Client-Id} also gets a smaller sub-bucket, so one client behind
+ * a shared address cannot use up the whole budget; headers only ever narrow the limit.
+ * While the connection pool is congested, a share of reads and AI requests is shed with
+ * 503 before it reaches the database, growing with the congestion; writes are only
+ * bucket-limited.
+ * <p>
+ * Behind a reverse proxy, set {@code server.forward-headers-strategy} so that the remote
+ * address is the client's rather than the proxy's.
+ */
+@Component
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    // Sub-bucket shared by the ids beyond max-clients-per-address
+    private static final String OTHER_CLIENTS = "";
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    enum Budget { READ, WRITE, AI }
+
+    private final PoolWaitMonitor poolWaitMonitor;
+    private final boolean enabled;
+    private final Map<Budget, double[]> limits; // capacity, refill per second
+    private final double clientShare;
+    private final int maxClientsPerAddress;
+    private final double shedThresholdMillis;
+    private final double maxShedFraction;
+
+    private final Map<String, AddressBuckets> addresses = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(
+            PoolWaitMonitor poolWaitMonitor,
+            @Value("${moneylog.ratelimit.enabled:true}") boolean enabled,
+            @Value("${moneylog.ratelimit.read.capacity:100}") double readCapacity,
+            @Value("${moneylog.ratelimit.read.refill-per-second:50}") double readRefill,
+            @Value("${moneylog.ratelimit.write.capacity:30}") double writeCapacity,
+            @Value("${moneylog.ratelimit.write.refill-per-second:10}") double writeRefill,
+            @Value("${moneylog.ratelimit.ai.capacity:5}") double aiCapacity,
+            @Value("${moneylog.ratelimit.ai.refill-per-second:0.1}") double aiRefill,
+            @Value("${moneylog.ratelimit.client-share:0.5}") double clientShare,
+            @Value("${moneylog.ratelimit.max-clients-per-address:32}") int maxClientsPerAddress,
+            @Value("${moneylog.ratelimit.shed.pool-wait-threshold-ms:50}") double shedThresholdMillis,
+            @Value("${moneylog.ratelimit.shed.max-fraction:0.9}") double maxShedFraction) {
+        this.poolWaitMonitor = poolWaitMonitor;
+        this.enabled = enabled;
+        this.limits = Map.of(
+                Budget.READ, new double[]{readCapacity, readRefill},
+                Budget.WRITE, new double[]{writeCapacity, writeRefill},
+                Budget.AI, new double[]{aiCapacity, aiRefill});
+        this.clientShare = clientShare;
+        this.maxClientsPerAddress = maxClientsPerAddress;
+        this.shedThresholdMillis = shedThresholdMillis;
+        this.maxShedFraction = maxShedFraction;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async re-dispatches (SSE completion) were admitted with the original request
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        Budget budget = classify(request);
+
+        if (budget != Budget.WRITE && shouldShed()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+
+        long now = System.nanoTime();
+        AddressBuckets address = addresses.computeIfAbsent(request.getRemoteAddr(), k -> new AddressBuckets());
+        String client = request.getHeader(CLIENT_HEADER);
+        TokenBucket clientBucket = client == null || client.isBlank() ? null : address.clientBucket(client, budget, now);
+        long waitNanos = clientBucket == null ? 0 : clientBucket.tryConsume(now);
+        if (waitNanos == 0) {
+            waitNanos = address.bucket(budget, now).tryConsume(now);
+            if (waitNanos > 0 && clientBucket != null) {
+                // Rejected by the address: the client's token was not used
+                clientBucket.refund();
+            }
+        }
+        if (waitNanos > 0) {
+            long retryAfterSeconds = (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Full buckets carry no state, so dropping them keeps memory proportional to active clients.
+     */
+    @Scheduled(fixedDelayString = "${moneylog.ratelimit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        addresses.values().removeIf(address -> address.evictFull(now));
+    }
+
+    private Budget classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/diaries")) {
+            return Budget.AI;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? Budget.READ : Budget.WRITE;
+    }
+
+    /**
+     * Sheds with a probability that rises linearly from 0 at the threshold to
+     * {@code max-fraction} at twice the threshold.
+     */
+    private boolean shouldShed() {
+        double waitMillis = poolWaitMonitor.getAverageWaitMillis();
+        if (waitMillis <= shedThresholdMillis) {
+            return false;
+        }
+        double fraction = Math.min(maxShedFraction, (waitMillis - shedThresholdMillis) / shedThresholdMillis);
+        boolean shed = ThreadLocalRandom.current().nextDouble() < fraction;
+        if (shed) {
+            log.debug("Shedding request: average pool wait {} ms", String.format("%.1f", waitMillis));
+        }
+        return shed;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    private TokenBucket newBucket(Budget budget, double share, long now) {
+        double[] limit = limits.get(budget);
+        return new TokenBucket(Math.max(1, limit[0] * share), limit[1] * share, now);
+    }
+
+    /** The enforced buckets of one remote address and the client sub-buckets within it. */
+    private final class AddressBuckets {
+        final Map<Budget, TokenBucket> buckets = new ConcurrentHashMap<>();
+        final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+        TokenBucket bucket(Budget budget, long now) {
+            return buckets.computeIfAbsent(budget, b -> newBucket(b, 1, now));
+        }
+
+        TokenBucket clientBucket(String client, Budget budget, long now) {
+            String key = client + '|' + budget;
+            TokenBucket bucket = clientBuckets.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            // Rotating ids cannot grow the table: past the cap new ids share one sub-bucket
+            if (clientBuckets.size() >= maxClientsPerAddress * Budget.values().length) {
+                key = OTHER_CLIENTS + '|' + budget;
+            }
+            return clientBuckets.computeIfAbsent(key, k -> newBucket(budget, clientShare, now));
+        }
+
+        /**
+         * @return true if nothing is left, so the whole entry can go
+         */
+        boolean evictFull(long now) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+            return buckets.isEmpty() && clientBuckets.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.moneylog.ai.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs time-to-first-request (JVM start until the first response is written),
+ * the number that matters for rolling restarts. Costs one volatile read afterwards.
+ */
+@Component
+@Slf4j
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (firstRequestSeen.get()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (firstRequestSeen.compareAndSet(false, true)) {
+                long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+                log.info("Time to first request: {} ms ({} {})",
+                        System.currentTimeMillis() - jvmStart, request.getMethod(), request.getRequestURI());
+            }
+        }
+    }
+}
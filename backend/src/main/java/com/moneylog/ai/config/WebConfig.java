@@ -0,0 +1,19 @@
+package com.moneylog.ai.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Runs after CorsFilter, so rejected responses still carry CORS headers
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/**");
+    }
+}
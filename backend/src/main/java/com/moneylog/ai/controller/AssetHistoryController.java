@@ -1,8 +1,11 @@
 package com.moneylog.ai.controller;
 
+import com.moneylog.ai.config.MediaTypes;
 import com.moneylog.ai.dto.AssetPositionDTO;
+import com.moneylog.ai.dto.HistoryColumnsDTO;
 import com.moneylog.ai.dto.HistoryRecordDTO;
 import com.moneylog.ai.service.AssetHistoryService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,7 +40,7 @@ public class AssetHistoryController {
     @PostMapping("/{month}")
     public ResponseEntity<AssetPositionDTO> savePosition(
             @PathVariable String month,
-            @RequestBody AssetPositionDTO dto) {
+            @Valid @RequestBody AssetPositionDTO dto) {
         AssetPositionDTO saved = assetHistoryService.savePosition(month, dto);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
@@ -53,7 +56,7 @@ public class AssetHistoryController {
     public ResponseEntity<AssetPositionDTO> updatePosition(
             @PathVariable String month,
             @PathVariable Long positionId,
-            @RequestBody AssetPositionDTO dto) {
+            @Valid @RequestBody AssetPositionDTO dto) {
         AssetPositionDTO updated = assetHistoryService.updatePosition(month, positionId, dto);
         return ResponseEntity.ok(updated);
     }
@@ -81,4 +84,14 @@ public class AssetHistoryController {
         List<HistoryRecordDTO> history = assetHistoryService.getHistory();
         return ResponseEntity.ok(history);
     }
+
+    /*
+     * 获取历史记录（列式 JSON）
+     * @return
+     */
+    @GetMapping(produces = MediaTypes.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<HistoryColumnsDTO> getHistoryColumnar() {
+        HistoryColumnsDTO history = assetHistoryService.getHistoryColumns();
+        return ResponseEntity.ok(history);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.moneylog.ai.controller;
+
+import com.moneylog.ai.dto.ChangeFeedDTO;
+import com.moneylog.ai.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    /*
+     * 获取指定游标之后的增量变更（新增、修改、删除）
+     * @param since 上次返回的 cursor，首次同步传 0
+     * @param limit
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeedDTO> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        ChangeFeedDTO feed = changeFeedService.getChangesSince(since, limit);
+        return ResponseEntity.ok(feed);
+    }
+
+    /*
+     * 订阅增量变更推送（SSE），先补发游标之后的变更
+     * @param since
+     * @param lastEventId 断线重连时浏览器自动带上的 Last-Event-ID
+     * @return
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
@@ -0,0 +1,26 @@
+package com.moneylog.ai.controller;
+
+import com.moneylog.ai.dto.DiaryDTO;
+import com.moneylog.ai.service.PrecomputeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/diaries")
+@RequiredArgsConstructor
+public class DiaryController {
+
+    private final PrecomputeService precomputeService;
+
+    /*
+     * 获取指定月份的 AI 理财日记（优先返回夜间预生成的结果）
+     * @param month YYYY-MM
+     * @return
+     */
+    @GetMapping("/{month}")
+    public ResponseEntity<DiaryDTO> getDiary(@PathVariable String month) {
+        DiaryDTO diary = precomputeService.getDiary(month);
+        return ResponseEntity.ok(diary);
+    }
+}
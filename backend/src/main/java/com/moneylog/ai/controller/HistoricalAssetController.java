@@ -1,8 +1,15 @@
 package com.moneylog.ai.controller;
 
+import com.moneylog.ai.config.MediaTypes;
+import com.moneylog.ai.dto.HistoricalAssetColumnsDTO;
 import com.moneylog.ai.dto.HistoricalAssetRecordDTO;
+import com.moneylog.ai.dto.HistoryAnalyticsDTO;
+import com.moneylog.ai.dto.HistoryColumnsDTO;
 import com.moneylog.ai.dto.HistoryRecordDTO;
+import com.moneylog.ai.entity.AssetCategory;
 import com.moneylog.ai.service.HistoricalAssetService;
+import com.moneylog.ai.service.HistoryColumnStore;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -28,6 +35,45 @@ public class HistoricalAssetController {
         return ResponseEntity.ok(records);
     }
 
+    /*
+     * 获取指定月份的资产记录（列式 JSON，Accept: application/vnd.moneylog.columnar+json）
+     * @param month
+     * @return
+     */
+    @GetMapping(value = "/{month}", produces = MediaTypes.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<HistoricalAssetColumnsDTO> getRecordsByMonthColumnar(@PathVariable String month) {
+        HistoricalAssetColumnsDTO columns = historicalAssetService.getRecordColumnsByMonth(month);
+        return ResponseEntity.ok(columns);
+    }
+
+    /*
+     * 获取月份区间内的资产记录（含首尾月份）
+     * @param from YYYY-MM
+     * @param to YYYY-MM
+     * @return
+     */
+    @GetMapping("/range")
+    public ResponseEntity<List<HistoricalAssetRecordDTO>> getRecordsInRange(
+            @RequestParam String from,
+            @RequestParam String to) {
+        List<HistoricalAssetRecordDTO> records = historicalAssetService.getRecordsInRange(from, to);
+        return ResponseEntity.ok(records);
+    }
+
+    /*
+     * 获取月份区间内的资产记录（列式 JSON）
+     * @param from YYYY-MM
+     * @param to YYYY-MM
+     * @return
+     */
+    @GetMapping(value = "/range", produces = MediaTypes.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<HistoricalAssetColumnsDTO> getRecordsInRangeColumnar(
+            @RequestParam String from,
+            @RequestParam String to) {
+        HistoricalAssetColumnsDTO columns = historicalAssetService.getRecordColumnsInRange(from, to);
+        return ResponseEntity.ok(columns);
+    }
+
     /*
      * 保存资产记录
      * @param month
@@ -37,7 +83,7 @@ public class HistoricalAssetController {
     @PostMapping("/{month}")
     public ResponseEntity<HistoricalAssetRecordDTO> saveRecord(
             @PathVariable String month,
-            @RequestBody HistoricalAssetRecordDTO dto) {
+            @Valid @RequestBody HistoricalAssetRecordDTO dto) {
         HistoricalAssetRecordDTO saved = historicalAssetService.saveRecord(month, dto);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
@@ -53,7 +99,7 @@ public class HistoricalAssetController {
     public ResponseEntity<HistoricalAssetRecordDTO> updateRecord(
             @PathVariable String month,
             @PathVariable Long recordId,
-            @RequestBody HistoricalAssetRecordDTO dto) {
+            @Valid @RequestBody HistoricalAssetRecordDTO dto) {
         HistoricalAssetRecordDTO updated = historicalAssetService.updateRecord(month, recordId, dto);
         return ResponseEntity.ok(updated);
     }
@@ -81,4 +127,32 @@ public class HistoricalAssetController {
         List<HistoryRecordDTO> history = historicalAssetService.getHistory();
         return ResponseEntity.ok(history);
     }
+
+    /*
+     * 获取历史记录（列式 JSON）
+     * @return
+     */
+    @GetMapping(value = "/history", produces = MediaTypes.COLUMNAR_JSON_VALUE)
+    public ResponseEntity<HistoryColumnsDTO> getHistoryColumnar() {
+        HistoryColumnsDTO history = historicalAssetService.getHistoryColumns();
+        return ResponseEntity.ok(history);
+    }
+
+    /*
+     * 历史数据分析：按月份区间、资产类别过滤后按月份 / 类别 / 月份+类别汇总（列式 JSON，内存列存计算）
+     * @param from YYYY-MM，可选
+     * @param to YYYY-MM，可选
+     * @param category 可多值，可选
+     * @param groupBy MONTH | CATEGORY | MONTH_CATEGORY
+     * @return
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<HistoryAnalyticsDTO> getAnalytics(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) List<AssetCategory> category,
+            @RequestParam(defaultValue = "MONTH") HistoryColumnStore.GroupBy groupBy) {
+        HistoryAnalyticsDTO analytics = historicalAssetService.getAnalytics(from, to, category, groupBy);
+        return ResponseEntity.ok(analytics);
+    }
 }
\ No newline at end of file
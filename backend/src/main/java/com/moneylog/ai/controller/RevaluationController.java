@@ -0,0 +1,45 @@
+package com.moneylog.ai.controller;
+
+import com.moneylog.ai.dto.RevaluationResultDTO;
+import com.moneylog.ai.service.RevaluationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/revaluations")
+@RequiredArgsConstructor
+public class RevaluationController {
+
+    private final RevaluationService revaluationService;
+
+    /*
+     * 按月末行情重估指定月份的全部持仓（月末结账）
+     * @param month YYYY-MM
+     * @param rollForward 为 true 时为当月没有记录的持仓补建记录
+     * @return
+     */
+    @PostMapping("/{month}")
+    public ResponseEntity<RevaluationResultDTO> revalueMonth(
+            @PathVariable String month,
+            @RequestParam(defaultValue = "false") boolean rollForward) {
+        RevaluationResultDTO result = revaluationService.revalue(month, month, rollForward);
+        return ResponseEntity.ok(result);
+    }
+
+    /*
+     * 按月末行情依次重估月份区间内的全部持仓
+     * @param from YYYY-MM
+     * @param to YYYY-MM
+     * @param rollForward 为 true 时为当月没有记录的持仓补建记录
+     * @return
+     */
+    @PostMapping
+    public ResponseEntity<RevaluationResultDTO> revalueRange(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "false") boolean rollForward) {
+        RevaluationResultDTO result = revaluationService.revalue(from, to, rollForward);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,19 @@
+package com.moneylog.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.moneylog.ai.entity.ChangeOperation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+    private long seq;
+    private ChangeOperation op;
+    private Long id;
+    private String month;
+    private HistoricalAssetRecordDTO record; // null for DELETE
+}
@@ -0,0 +1,16 @@
+package com.moneylog.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+    private List<ChangeDTO> changes;
+    private long cursor; // pass back as ?since= on the next call
+    private boolean hasMore;
+}
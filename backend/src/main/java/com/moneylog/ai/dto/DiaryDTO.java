@@ -0,0 +1,17 @@
+package com.moneylog.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiaryDTO {
+    private String month;
+    private String content;
+    private LocalDateTime generatedAt;
+    private boolean precomputed; // Served from the stored diary without an upstream call
+}
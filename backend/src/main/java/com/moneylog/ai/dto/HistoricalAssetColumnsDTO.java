@@ -0,0 +1,28 @@
+package com.moneylog.ai.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.money.MinorUnitsArraySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar form of a list of {@link HistoricalAssetRecordDTO}: element i of every array is row i.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricalAssetColumnsDTO {
+    private int size;
+    private long[] id;
+    private String[] month;
+    private String[] name;
+    private AssetCategory[] category;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] amount;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] monthlyGain;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] totalGain;
+}
@@ -1,6 +1,8 @@
 package com.moneylog.ai.dto;
 
 import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.money.MinorUnits;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +15,14 @@ public class HistoricalAssetRecordDTO {
     private String month;
     private String name;
     private AssetCategory category;
-    private Double amount;
-    private Double monthlyGain;
-    private Double totalGain;
+    // Boxed so an omitted amount fails validation instead of saving 0
+    @NotNull
+    @MinorUnits
+    private Long amount;
+    @NotNull
+    @MinorUnits
+    private Long monthlyGain;
+    @NotNull
+    @MinorUnits
+    private Long totalGain;
 }
\ No newline at end of file
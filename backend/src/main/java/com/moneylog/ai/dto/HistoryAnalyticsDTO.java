@@ -0,0 +1,27 @@
+package com.moneylog.ai.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.money.MinorUnitsArraySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Columnar result of a grouped history scan: element i of every array is group i.
+ * {@code month} or {@code category} is omitted when the scan did not group by it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HistoryAnalyticsDTO {
+    private String[] month;
+    private AssetCategory[] category;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] totalAssets;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] totalGain;
+    private int[] holdings;
+}
@@ -0,0 +1,38 @@
+package com.moneylog.ai.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.moneylog.ai.money.MinorUnitsArraySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Columnar form of a list of {@link HistoryRecordDTO}: element i of every array is month i.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryColumnsDTO {
+    private int size;
+    private String[] month;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] totalAssets;
+    @JsonSerialize(using = MinorUnitsArraySerializer.class)
+    private long[] totalGain;
+
+    public static HistoryColumnsDTO of(List<HistoryRecordDTO> history) {
+        int n = history.size();
+        String[] months = new String[n];
+        long[] totalAssets = new long[n];
+        long[] totalGain = new long[n];
+        for (int i = 0; i < n; i++) {
+            HistoryRecordDTO row = history.get(i);
+            months[i] = row.getMonth();
+            totalAssets[i] = row.getTotalAssets();
+            totalGain[i] = row.getTotalGain();
+        }
+        return new HistoryColumnsDTO(n, months, totalAssets, totalGain);
+    }
+}
@@ -1,5 +1,6 @@
 package com.moneylog.ai.dto;
 
+import com.moneylog.ai.money.MinorUnits;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class HistoryRecordDTO {
     private String month;
-    private Double totalAssets;
-    private Double totalGain;
+    @MinorUnits
+    private long totalAssets;
+    @MinorUnits
+    private long totalGain;
 }
 
@@ -0,0 +1,21 @@
+package com.moneylog.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevaluationResultDTO {
+    private String fromMonth;
+    private String toMonth;
+    private int holdings;
+    private int partitions;
+    private int updated;
+    private int inserted;
+    private int unchanged;
+    private int skipped; // no quote for the month or the month before, or no prior position
+    private int conflicts; // not written: the holding was edited, deleted or added to after the run read it
+    private long elapsedMillis;
+}
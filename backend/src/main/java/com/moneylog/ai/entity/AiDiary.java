@@ -0,0 +1,33 @@
+package com.moneylog.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Generated financial diary for a month. {@code sourceSeq} is the change_log seq the
+ * diary reflects; a later change to the month makes it stale.
+ */
+@Entity
+@Table(name = "ai_diaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiDiary {
+
+    @Id
+    @Column(length = 7)
+    private String month; // YYYY-MM format
+
+    @Column(nullable = false, length = 4000)
+    private String content;
+
+    @Column(nullable = false)
+    private long sourceSeq;
+
+    @Column(nullable = false)
+    private LocalDateTime generatedAt;
+}
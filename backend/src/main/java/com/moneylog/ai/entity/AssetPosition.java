@@ -1,5 +1,6 @@
 package com.moneylog.ai.entity;
 
+import com.moneylog.ai.money.MinorUnitsConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -23,14 +24,17 @@ public class AssetPosition {
     @Column(nullable = false)
     private AssetCategory category;
     
-    @Column(nullable = false)
-    private Double amount; // Current Market Value
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long amount; // Current Market Value, minor units
     
-    @Column(nullable = false)
-    private Double monthlyGain; // Gain this month
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long monthlyGain; // Gain this month, minor units
     
-    @Column(nullable = false)
-    private Double totalGain; // Total cumulative gain
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long totalGain; // Total cumulative gain, minor units
     
     @Column(nullable = false, length = 7)
     private String month; // YYYY-MM format
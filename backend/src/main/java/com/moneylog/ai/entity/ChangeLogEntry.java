@@ -0,0 +1,59 @@
+package com.moneylog.ai.entity;
+
+import com.moneylog.ai.money.MinorUnitsConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed change to a historical asset record. {@code seq} is the client cursor;
+ * DELETE entries are tombstones and carry no snapshot.
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_month", columnList = "month, seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLogEntry {
+
+    @Id
+    private Long seq; // Assigned from ChangeSequence, strictly increasing in commit order
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private ChangeOperation operation;
+
+    @Column(nullable = false)
+    private Long recordId;
+
+    @Column(nullable = false, length = 7)
+    private String month; // YYYY-MM format
+
+    private String assetName;
+
+    @Enumerated(EnumType.STRING)
+    private AssetCategory category;
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long amount; // minor units, 0 for tombstones
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long monthlyGain; // minor units, 0 for tombstones
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long totalGain; // minor units, 0 for tombstones
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
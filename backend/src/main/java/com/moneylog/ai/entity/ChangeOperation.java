@@ -0,0 +1,7 @@
+package com.moneylog.ai.entity;
+
+public enum ChangeOperation {
+    INSERT,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,26 @@
+package com.moneylog.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row counter for the change log. Writers take a row lock on it, so
+ * sequence numbers become visible in commit order and a cursor never skips a change.
+ */
+@Entity
+@Table(name = "change_sequence")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSequence {
+
+    public static final long CHANGE_LOG = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long lastSeq;
+}
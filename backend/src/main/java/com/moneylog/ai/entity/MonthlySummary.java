@@ -0,0 +1,38 @@
+package com.moneylog.ai.entity;
+
+import com.moneylog.ai.money.MinorUnitsConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed per-month totals of historical_asset_records, refreshed by the scheduler.
+ */
+@Entity
+@Table(name = "monthly_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySummary {
+
+    @Id
+    @Column(length = 7)
+    private String month; // YYYY-MM format
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long totalAssets; // minor units
+
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private long totalGain; // Sum of monthly gains, minor units
+
+    @Column(nullable = false)
+    private int recordCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
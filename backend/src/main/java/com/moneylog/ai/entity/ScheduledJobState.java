@@ -0,0 +1,49 @@
+package com.moneylog.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted state of one scheduled job. The lease columns double as the leader lock:
+ * a node runs the job only after it has claimed an expired or free lease.
+ */
+@Entity
+@Table(name = "scheduled_job_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobState {
+
+    public static final long NEVER_RUN = -1L;
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 128)
+    private String lockedBy;
+
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime lastStartedAt;
+
+    private LocalDateTime lastFinishedAt;
+
+    @Column(length = 16)
+    private String lastStatus; // SUCCESS or FAILED
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private long watermark; // Last change_log seq fully processed, NEVER_RUN before the first run
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long resetGeneration; // Bumped by each reset; a run started before one does not store its watermark
+}
@@ -0,0 +1,27 @@
+package com.moneylog.ai.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Columnar counterpart of {@link MinorUnitsSerializer}: a {@code long[]} of minor units
+ * written as a JSON array of major-unit numbers.
+ */
+public class MinorUnitsArraySerializer extends StdSerializer<long[]> {
+
+    public MinorUnitsArraySerializer() {
+        super(long[].class);
+    }
+
+    @Override
+    public void serialize(long[] minorUnits, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(minorUnits, minorUnits.length);
+        for (long value : minorUnits) {
+            gen.writeNumber(Money.toMajor(value));
+        }
+        gen.writeEndArray();
+    }
+}
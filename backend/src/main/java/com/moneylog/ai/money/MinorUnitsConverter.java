@@ -0,0 +1,25 @@
+package com.moneylog.ai.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps a {@code long} minor-unit field onto a major-unit DECIMAL column.
+ * Existing rows (including legacy DOUBLE columns) keep their values; the
+ * read path rounds to the currency scale so no binary float leaks into Java.
+ */
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minorUnits) {
+        return minorUnits == null ? null : Money.toMajor(minorUnits);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal major) {
+        return major == null ? 0L : Money.toMinor(major);
+    }
+}
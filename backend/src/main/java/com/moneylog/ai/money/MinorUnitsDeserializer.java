@@ -0,0 +1,47 @@
+package com.moneylog.ai.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a major-unit JSON number (or numeric string) into {@code long} minor units.
+ * Parses through {@link BigDecimal} so {@code 0.1} never becomes {@code 0.1000000000000000055}.
+ * Null and blank values are rejected rather than read as a zero balance.
+ */
+public class MinorUnitsDeserializer extends StdDeserializer<Long> {
+
+    public MinorUnitsDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return Money.toMinor(p.getDecimalValue());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            if (text.isEmpty()) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, text, "monetary amount must not be blank");
+            }
+            try {
+                return Money.toMinor(new BigDecimal(text));
+            } catch (NumberFormatException e) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, text, "not a valid monetary amount");
+            }
+        }
+        return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext ctxt) throws JsonMappingException {
+        return ctxt.reportInputMismatch(this, "monetary amount must not be null");
+    }
+}
@@ -0,0 +1,23 @@
+package com.moneylog.ai.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@code long} minor-unit field as a JSON number in major units,
+ * so clients keep seeing {@code "amount": 120000.00}.
+ */
+public class MinorUnitsSerializer extends StdSerializer<Long> {
+
+    public MinorUnitsSerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long minorUnits, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeNumber(Money.toMajor(minorUnits));
+    }
+}
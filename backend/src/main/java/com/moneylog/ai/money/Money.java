@@ -0,0 +1,34 @@
+package com.moneylog.ai.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Conversions between major-unit decimals and {@code long} minor units (cents / fen).
+ * Entities and DTOs keep the raw {@code long}, always in {@link #BASE_CURRENCY},
+ * so aggregation never boxes.
+ */
+public final class Money {
+
+    public static final Currency BASE_CURRENCY = Currency.getInstance("CNY");
+
+    private static final int SCALE = Math.max(0, BASE_CURRENCY.getDefaultFractionDigits());
+
+    private Money() {
+    }
+
+    /**
+     * Converts a major-unit decimal (e.g. 1234.56 yuan) to minor units,
+     * rounding half-up to the currency's fraction digits.
+     */
+    public static long toMinor(BigDecimal major) {
+        return major.setScale(SCALE, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    public static BigDecimal toMajor(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
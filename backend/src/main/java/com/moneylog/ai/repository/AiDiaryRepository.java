@@ -0,0 +1,9 @@
+package com.moneylog.ai.repository;
+
+import com.moneylog.ai.entity.AiDiary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AiDiaryRepository extends JpaRepository<AiDiary, String> {
+}
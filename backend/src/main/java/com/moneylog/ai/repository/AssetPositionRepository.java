@@ -2,8 +2,11 @@ package com.moneylog.ai.repository;
 
 import com.moneylog.ai.entity.AssetPosition;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +14,7 @@ import java.util.Optional;
 public interface AssetPositionRepository extends JpaRepository<AssetPosition, Long> {
     List<AssetPosition> findByMonthOrderByCategoryAsc(String month);
     Optional<AssetPosition> findByIdAndMonth(Long id, String month);
-    boolean existsByMonth(String month);
+
+    @Query("select distinct p.month from AssetPosition p where p.month in :months")
+    List<String> findMonthsIn(@Param("months") Collection<String> months);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.moneylog.ai.repository;
+
+import com.moneylog.ai.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    List<ChangeLogEntry> findBySeqGreaterThanOrderBySeqAsc(long seq, Pageable pageable);
+
+    @Query("select distinct c.month from ChangeLogEntry c where c.seq > :since and c.seq <= :upTo")
+    List<String> findChangedMonths(@Param("since") long since, @Param("upTo") long upTo);
+
+    @Query("select max(c.seq) from ChangeLogEntry c where c.month = :month")
+    Long findLatestSeqForMonth(@Param("month") String month);
+}
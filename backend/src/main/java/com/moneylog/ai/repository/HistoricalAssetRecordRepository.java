@@ -2,12 +2,21 @@ package com.moneylog.ai.repository;
 
 import com.moneylog.ai.entity.HistoricalAssetRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface HistoricalAssetRecordRepository extends JpaRepository<HistoricalAssetRecord, Long> {
     List<HistoricalAssetRecord> findByMonthOrderByCategoryAsc(String month);
-    boolean existsByMonth(String month);
+    List<HistoricalAssetRecord> findByMonthBetweenOrderByMonthAscCategoryAsc(String fromMonth, String toMonth);
+
+    @Query("select distinct r.month from HistoricalAssetRecord r where r.month in :months")
+    List<String> findMonthsIn(@Param("months") Collection<String> months);
+
+    @Query("select distinct r.month from HistoricalAssetRecord r")
+    List<String> findAllMonths();
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.moneylog.ai.repository;
+
+import com.moneylog.ai.entity.MonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MonthlySummaryRepository extends JpaRepository<MonthlySummary, String> {
+    List<MonthlySummary> findAllByOrderByMonthAsc();
+}
@@ -0,0 +1,37 @@
+package com.moneylog.ai.repository;
+
+import com.moneylog.ai.entity.ScheduledJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ScheduledJobStateRepository extends JpaRepository<ScheduledJobState, String> {
+
+    @Modifying
+    @Query("update ScheduledJobState s set s.lockedBy = :owner, s.lockedUntil = :until, s.lastStartedAt = :now " +
+           "where s.name = :name and (s.lockedUntil is null or s.lockedUntil < :now or s.lockedBy = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Stores the watermark only if no reset happened since the run read {@code generation}.
+     */
+    @Modifying
+    @Query("update ScheduledJobState s set s.lockedBy = null, s.lockedUntil = null, s.lastFinishedAt = :now, " +
+           "s.lastStatus = :status, s.lastError = :error, " +
+           "s.watermark = case when s.resetGeneration = :generation then :watermark else s.watermark end " +
+           "where s.name = :name and s.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                @Param("status") String status, @Param("error") String error,
+                @Param("watermark") long watermark, @Param("generation") long generation);
+
+    @Modifying
+    @Query("update ScheduledJobState s set s.watermark = :neverRun, s.resetGeneration = s.resetGeneration + 1 " +
+           "where s.name = :name")
+    int resetWatermark(@Param("name") String name, @Param("neverRun") long neverRun);
+}
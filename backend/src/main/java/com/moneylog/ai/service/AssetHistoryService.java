@@ -1,6 +1,7 @@
 package com.moneylog.ai.service;
 
 import com.moneylog.ai.dto.AssetPositionDTO;
+import com.moneylog.ai.dto.HistoryColumnsDTO;
 import com.moneylog.ai.dto.HistoryRecordDTO;
 import com.moneylog.ai.entity.AssetPosition;
 import com.moneylog.ai.repository.AssetPositionRepository;
@@ -9,8 +10,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -69,27 +72,22 @@ public class AssetHistoryService {
     public List<HistoryRecordDTO> getHistory() {
         List<AssetPosition> allPositions = assetPositionRepository.findAll();
 
-        // Group by month and calculate totals
-        return allPositions.stream()
-                .collect(Collectors.groupingBy(AssetPosition::getMonth))
-                .entrySet()
-                .stream()
-                .map(entry -> {
-                    String month = entry.getKey();
-                    List<AssetPosition> positions = entry.getValue();
-                    
-                    double totalAssets = positions.stream()
-                            .mapToDouble(AssetPosition::getAmount)
-                            .sum();
-                            
-                    double totalGain = positions.stream()
-                            .mapToDouble(AssetPosition::getMonthlyGain)
-                            .sum();
-                            
-                    return new HistoryRecordDTO(month, totalAssets, totalGain);
-                })
-                .sorted(Comparator.comparing(HistoryRecordDTO::getMonth))
-                .collect(Collectors.toList());
+        // Group by month and sum minor units; TreeMap keeps months sorted
+        Map<String, long[]> totalsByMonth = new TreeMap<>();
+        for (AssetPosition position : allPositions) {
+            long[] totals = totalsByMonth.computeIfAbsent(position.getMonth(), m -> new long[2]);
+            totals[0] = Math.addExact(totals[0], position.getAmount());
+            totals[1] = Math.addExact(totals[1], position.getMonthlyGain());
+        }
+
+        List<HistoryRecordDTO> history = new ArrayList<>(totalsByMonth.size());
+        totalsByMonth.forEach((month, totals) -> history.add(new HistoryRecordDTO(month, totals[0], totals[1])));
+        return history;
+    }
+
+    @Transactional(readOnly = true)
+    public HistoryColumnsDTO getHistoryColumns() {
+        return HistoryColumnsDTO.of(getHistory());
     }
 
     private AssetPositionDTO convertToDTO(AssetPosition position) {
@@ -102,4 +100,5 @@ public class AssetHistoryService {
                 position.getTotalGain()
         );
     }
+
 }
\ No newline at end of file
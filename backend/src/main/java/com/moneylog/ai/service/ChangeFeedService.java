@@ -0,0 +1,375 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.dto.ChangeDTO;
+import com.moneylog.ai.dto.ChangeFeedDTO;
+import com.moneylog.ai.dto.HistoricalAssetRecordDTO;
+import com.moneylog.ai.entity.ChangeLogEntry;
+import com.moneylog.ai.entity.ChangeOperation;
+import com.moneylog.ai.entity.ChangeSequence;
+import com.moneylog.ai.entity.HistoricalAssetRecord;
+import com.moneylog.ai.money.Money;
+import com.moneylog.ai.repository.ChangeLogRepository;
+import com.moneylog.ai.repository.ChangeSequenceRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only change log for historical asset records, written in the same
+ * transaction as the record itself, plus an optional SSE push of committed changes.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    private static final String INSERT_ENTRY =
+            "INSERT INTO change_log (seq, operation, record_id, month, asset_name, category, amount, monthly_gain, total_gain, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeSequenceRepository changeSequenceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final int maxPageSize;
+    private final long sseTimeoutMillis;
+    private final int batchSize;
+
+    private final int maxQueuedChanges;
+    private final ExecutorService sseExecutor;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ChangeFeedService(
+            ChangeLogRepository changeLogRepository,
+            ChangeSequenceRepository changeSequenceRepository,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${moneylog.changes.max-page-size:1000}") int maxPageSize,
+            @Value("${moneylog.changes.sse-timeout-ms:1800000}") long sseTimeoutMillis,
+            @Value("${moneylog.jdbc.batch-size:500}") int batchSize,
+            @Value("${moneylog.changes.sse-threads:4}") int sseThreads,
+            @Value("${moneylog.changes.sse-max-queued:1000}") int maxQueuedChanges) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeSequenceRepository = changeSequenceRepository;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPageSize = maxPageSize;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.batchSize = batchSize;
+        this.maxQueuedChanges = maxQueuedChanges;
+        this.sseExecutor = Executors.newFixedThreadPool(sseThreads);
+    }
+
+    /**
+     * Appends a change; must join the caller's write transaction so the entry
+     * commits or rolls back together with the record.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeOperation operation, HistoricalAssetRecord record) {
+        ChangeLogEntry entry = toEntry(reserveSeqs(1), operation, record);
+        // Persisted directly: save() would merge, selecting the assigned seq first
+        entityManager.persist(entry);
+
+        // Delivered to SSE subscribers only after commit
+        eventPublisher.publishEvent(convertToDTO(entry));
+    }
+
+    /**
+     * Bulk variant of {@link #record} for batch writers: reserves a block of sequence
+     * numbers with one lock and inserts the entries as one JDBC batch. Call it as the
+     * last statement of the transaction so the sequence lock is held briefly.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ChangeOperation operation, List<HistoricalAssetRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long firstSeq = reserveSeqs(records.size());
+        List<ChangeLogEntry> entries = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            entries.add(toEntry(firstSeq + i, operation, records.get(i)));
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, entries, batchSize, (ps, entry) -> {
+            ps.setLong(1, entry.getSeq());
+            ps.setString(2, entry.getOperation().name());
+            ps.setLong(3, entry.getRecordId());
+            ps.setString(4, entry.getMonth());
+            ps.setString(5, entry.getAssetName());
+            ps.setString(6, entry.getCategory() != null ? entry.getCategory().name() : null);
+            ps.setBigDecimal(7, Money.toMajor(entry.getAmount()));
+            ps.setBigDecimal(8, Money.toMajor(entry.getMonthlyGain()));
+            ps.setBigDecimal(9, Money.toMajor(entry.getTotalGain()));
+            ps.setTimestamp(10, createdAt);
+        });
+
+        for (ChangeLogEntry entry : entries) {
+            eventPublisher.publishEvent(convertToDTO(entry));
+        }
+    }
+
+    /**
+     * Creates the counter row before traffic arrives, so writers never race to insert it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSequenceIfMissing() {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (!changeSequenceRepository.existsById(ChangeSequence.CHANGE_LOG)) {
+                    changeSequenceRepository.saveAndFlush(new ChangeSequence(ChangeSequence.CHANGE_LOG, 0L));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("change_sequence row created concurrently");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ChangeFeedDTO getChangesSince(long since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // Fetch one extra row to learn whether another page follows
+        List<ChangeLogEntry> entries = changeLogRepository.findBySeqGreaterThanOrderBySeqAsc(
+                since, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = entries.size() > pageSize;
+        int size = hasMore ? pageSize : entries.size();
+        List<ChangeDTO> changes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            changes.add(convertToDTO(entries.get(i)));
+        }
+        long cursor = changes.isEmpty() ? since : changes.get(size - 1).getSeq();
+        return new ChangeFeedDTO(changes, cursor, hasMore);
+    }
+
+    /**
+     * Highest committed seq, read without locking the counter row.
+     */
+    @Transactional(readOnly = true)
+    public long getLatestSeq() {
+        return changeSequenceRepository.findById(ChangeSequence.CHANGE_LOG)
+                .map(ChangeSequence::getLastSeq)
+                .orElse(0L);
+    }
+
+    /**
+     * Registers the emitter and replays the backlog after {@code since} on the delivery
+     * executor, followed by live changes. Each subscriber keeps its own cursor, so
+     * every seq is sent exactly once and in order.
+     */
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Only queues the change; sending happens on the delivery executor so a slow client
+     * never holds up the committing request. Callbacks of concurrent commits may run
+     * out of seq order, which each subscriber repairs from change_log.
+     */
+    @TransactionalEventListener
+    public void onChangeCommitted(ChangeDTO change) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(change);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sseExecutor.shutdownNow();
+    }
+
+    /**
+     * Locks the counter row until commit and returns the first of {@code count} new sequence numbers.
+     */
+    private long reserveSeqs(int count) {
+        ChangeSequence sequence = changeSequenceRepository.findForUpdate(ChangeSequence.CHANGE_LOG)
+                .orElse(null);
+        if (sequence == null) {
+            createSequenceIfMissing();
+            sequence = changeSequenceRepository.findForUpdate(ChangeSequence.CHANGE_LOG)
+                    .orElseThrow(() -> new IllegalStateException("change_sequence row missing"));
+        }
+        long firstSeq = sequence.getLastSeq() + 1;
+        sequence.setLastSeq(sequence.getLastSeq() + count);
+        changeSequenceRepository.save(sequence);
+        return firstSeq;
+    }
+
+    private ChangeLogEntry toEntry(long seq, ChangeOperation operation, HistoricalAssetRecord record) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        entry.setSeq(seq);
+        entry.setOperation(operation);
+        entry.setRecordId(record.getId());
+        entry.setMonth(record.getMonth());
+        if (operation != ChangeOperation.DELETE) {
+            entry.setAssetName(record.getAssetName());
+            entry.setCategory(record.getCategory());
+            entry.setAmount(record.getAmount());
+            entry.setMonthlyGain(record.getMonthlyGain());
+            entry.setTotalGain(record.getTotalGain());
+        }
+        return entry;
+    }
+
+    private void send(SseEmitter emitter, ChangeDTO change) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(change.getSeq()))
+                .name("change")
+                .data(change));
+    }
+
+    private ChangeDTO convertToDTO(ChangeLogEntry entry) {
+        HistoricalAssetRecordDTO record = null;
+        if (entry.getOperation() != ChangeOperation.DELETE) {
+            record = new HistoricalAssetRecordDTO(
+                    entry.getRecordId(),
+                    entry.getMonth(),
+                    entry.getAssetName(),
+                    entry.getCategory(),
+                    entry.getAmount(),
+                    entry.getMonthlyGain(),
+                    entry.getTotalGain()
+            );
+        }
+        return new ChangeDTO(entry.getSeq(), entry.getOperation(), entry.getRecordId(), entry.getMonth(), record);
+    }
+
+    /**
+     * One SSE client. Live changes queue up here and are sent by at most one executor
+     * task at a time. A change ahead of the cursor means earlier ones are still in flight
+     * or came from another node; they are committed already, so the gap is read back
+     * from change_log before the change itself is sent.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<ChangeDTO> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long cursor; // Last seq sent; touched only by the running drain task
+        private boolean backlogSent;
+
+        Subscriber(SseEmitter emitter, long since) {
+            this.emitter = emitter;
+            this.cursor = since;
+        }
+
+        void offer(ChangeDTO change) {
+            if (queued.incrementAndGet() > maxQueuedChanges) {
+                // Too far behind; the client reconnects with Last-Event-ID and replays from the log
+                log.debug("Dropping change feed subscriber: {} changes queued", maxQueuedChanges);
+                close();
+                return;
+            }
+            queue.add(change);
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sseExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (!backlogSent) {
+                    replayUpTo(Long.MAX_VALUE);
+                    backlogSent = true;
+                }
+                ChangeDTO change;
+                while ((change = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    if (change.getSeq() <= cursor) {
+                        continue;
+                    }
+                    if (change.getSeq() > cursor + 1) {
+                        replayUpTo(change.getSeq() - 1);
+                    }
+                    sendInOrder(change);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping change feed subscriber: {}", e.getMessage());
+                close();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // A change may have been queued after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void replayUpTo(long upTo) throws IOException {
+            ChangeFeedDTO page;
+            do {
+                page = getChangesSince(cursor, maxPageSize);
+                for (ChangeDTO change : page.getChanges()) {
+                    if (change.getSeq() > upTo) {
+                        return;
+                    }
+                    sendInOrder(change);
+                }
+            } while (page.isHasMore());
+        }
+
+        private void sendInOrder(ChangeDTO change) throws IOException {
+            send(emitter, change);
+            cursor = change.getSeq();
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
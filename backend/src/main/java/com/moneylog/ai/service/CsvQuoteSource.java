@@ -0,0 +1,76 @@
+package com.moneylog.ai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * File-drop quote source: {@code <moneylog.quotes.dir>/YYYY-MM.csv} with lines
+ * {@code name,price}. Blank lines, {@code #} comments and a header row are ignored;
+ * the price is taken after the last comma, so names may contain commas.
+ */
+@Component
+@Slf4j
+public class CsvQuoteSource implements QuoteSource {
+
+    private final Path quotesDir;
+
+    public CsvQuoteSource(@Value("${moneylog.quotes.dir:quotes}") String quotesDir) {
+        this.quotesDir = Path.of(quotesDir);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getMonthEndPrices(String month) {
+        Path file = quotesDir.resolve(month + ".csv");
+        if (!Files.isRegularFile(file)) {
+            log.debug("No quote file for month {} at {}", month, file.toAbsolutePath());
+            return Map.of();
+        }
+
+        Map<String, BigDecimal> prices = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int comma = line.lastIndexOf(',');
+                if (comma <= 0) {
+                    log.warn("Skipping malformed quote line {}:{}", file, lineNo);
+                    continue;
+                }
+                String name = line.substring(0, comma).strip();
+                BigDecimal price;
+                try {
+                    price = new BigDecimal(line.substring(comma + 1).strip());
+                } catch (NumberFormatException e) {
+                    if (lineNo > 1) {
+                        log.warn("Skipping malformed quote line {}:{}", file, lineNo);
+                    }
+                    continue;
+                }
+                if (price.signum() <= 0) {
+                    log.warn("Skipping non-positive price for {} in {}", name, file);
+                    continue;
+                }
+                prices.put(name, price);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read quotes from " + file, e);
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,230 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.dto.AssetPositionDTO;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.money.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds compact diary prompts. Holdings are sent as CSV-like rows that reference
+ * a shared name legend, so a multi-month prompt states each fund name once. When the
+ * estimated size exceeds the token budget, the smallest positions of each month are
+ * folded into one "others" row.
+ */
+@Component
+public class DiaryPromptBuilder {
+
+    private static final String STYLE =
+            "Style: Warm, concise, and professional. Mention the biggest winner of the month. " +
+            "If the monthly result is positive, be celebratory. If negative, be reassuring and focus on long-term accumulation. " +
+            "Output straight text, no markdown headers.";
+
+    private static final Pattern MONTH_MARKER = Pattern.compile("^\\s*=+\\s*(\\d{4}-\\d{2})\\s*=+\\s*$", Pattern.MULTILINE);
+
+    private final int tokenBudget;
+
+    public DiaryPromptBuilder(@Value("${gemini.prompt.token-budget:2000}") int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * One prompt covering several months; the reply is split with {@link #splitMultiMonthResponse}.
+     */
+    public String buildMultiMonthPrompt(SortedMap<String, List<AssetPositionDTO>> positionsByMonth) {
+        String intro = "You are a helpful, encouraging personal finance assistant. " +
+                "Write a short \"Monthly Financial Diary\" entry (max 100 words) for EACH month below.\n" +
+                "Start every entry with a line of the form \"=== YYYY-MM ===\" and write the entries in month order. " +
+                "Do not output anything outside the entries.\n\n";
+        return fitToBudget(intro, STYLE, positionsByMonth);
+    }
+
+    /**
+     * Splits a multi-month reply on its "=== YYYY-MM ===" markers. Months the model
+     * skipped, or that were not requested, are left out of the result.
+     */
+    public Map<String, String> splitMultiMonthResponse(String text, Collection<String> months) {
+        Map<String, String> diaries = new LinkedHashMap<>();
+        if (text == null) {
+            return diaries;
+        }
+        Matcher matcher = MONTH_MARKER.matcher(text);
+        String currentMonth = null;
+        int bodyStart = 0;
+        while (matcher.find()) {
+            putDiary(diaries, months, currentMonth, text.substring(bodyStart, matcher.start()));
+            currentMonth = matcher.group(1);
+            bodyStart = matcher.end();
+        }
+        putDiary(diaries, months, currentMonth, text.substring(bodyStart));
+        return diaries;
+    }
+
+    /**
+     * Rough token estimate: ~4 ASCII characters per token, one token per CJK character.
+     */
+    static int estimateTokens(CharSequence text) {
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+
+    private void putDiary(Map<String, String> diaries, Collection<String> months, String month, String body) {
+        if (month == null || !months.contains(month)) {
+            return;
+        }
+        String diary = body.trim();
+        if (!diary.isEmpty()) {
+            diaries.put(month, diary);
+        }
+    }
+
+    private String fitToBudget(String intro, String style, Map<String, List<AssetPositionDTO>> positionsByMonth) {
+        // Order each month's holdings by size so truncation drops the long tail first
+        Map<String, List<AssetPositionDTO>> sorted = new LinkedHashMap<>();
+        int maxRows = 1;
+        for (Map.Entry<String, List<AssetPositionDTO>> entry : positionsByMonth.entrySet()) {
+            List<AssetPositionDTO> holdings = new ArrayList<>(entry.getValue());
+            holdings.sort((a, b) -> Long.compare(Math.abs(b.getAmount()), Math.abs(a.getAmount())));
+            sorted.put(entry.getKey(), holdings);
+            maxRows = Math.max(maxRows, holdings.size());
+        }
+
+        int rowsPerMonth = maxRows;
+        String prompt = render(intro, style, sorted, rowsPerMonth);
+        while (rowsPerMonth > 1 && estimateTokens(prompt) > tokenBudget) {
+            rowsPerMonth = Math.max(1, Math.min(rowsPerMonth - 1, rowsPerMonth * 3 / 4));
+            prompt = render(intro, style, sorted, rowsPerMonth);
+        }
+        return prompt;
+    }
+
+    private String render(String intro, String style, Map<String, List<AssetPositionDTO>> sortedByMonth, int rowsPerMonth) {
+        Map<String, Integer> nameIds = new HashMap<>();
+        StringBuilder legend = new StringBuilder();
+        EnumSet<AssetCategory> categories = EnumSet.noneOf(AssetCategory.class);
+        StringBuilder months = new StringBuilder();
+
+        for (Map.Entry<String, List<AssetPositionDTO>> entry : sortedByMonth.entrySet()) {
+            List<AssetPositionDTO> holdings = entry.getValue();
+            long totalAssets = 0L;
+            long totalMonthlyGain = 0L;
+            for (AssetPositionDTO p : holdings) {
+                totalAssets = Math.addExact(totalAssets, p.getAmount());
+                totalMonthlyGain = Math.addExact(totalMonthlyGain, p.getMonthlyGain());
+            }
+
+            months.append("Month ").append(entry.getKey())
+                    .append(": total ").append(format(totalAssets))
+                    .append(", month gain ").append(format(totalMonthlyGain)).append('\n');
+
+            AssetPositionDTO winner = biggestWinner(holdings);
+            int kept = 0;
+            int folded = 0;
+            long otherAmount = 0L;
+            long otherMonthlyGain = 0L;
+            long otherTotalGain = 0L;
+            for (AssetPositionDTO p : holdings) {
+                // The biggest winner is always listed by name, even when it is a small position
+                if (kept < rowsPerMonth || p == winner) {
+                    Integer id = nameIds.get(p.getName());
+                    if (id == null) {
+                        id = nameIds.size() + 1;
+                        nameIds.put(p.getName(), id);
+                        legend.append(id).append('=').append(p.getName())
+                                .append('/').append(categoryCode(p.getCategory())).append('\n');
+                        categories.add(p.getCategory());
+                    }
+                    months.append(id).append(',').append(format(p.getAmount()))
+                            .append(',').append(format(p.getMonthlyGain()))
+                            .append(',').append(format(p.getTotalGain())).append('\n');
+                    kept++;
+                } else {
+                    folded++;
+                    otherAmount = Math.addExact(otherAmount, p.getAmount());
+                    otherMonthlyGain = Math.addExact(otherMonthlyGain, p.getMonthlyGain());
+                    otherTotalGain = Math.addExact(otherTotalGain, p.getTotalGain());
+                }
+            }
+            if (folded > 0) {
+                months.append("others(").append(folded).append("),").append(format(otherAmount))
+                        .append(',').append(format(otherMonthlyGain))
+                        .append(',').append(format(otherTotalGain)).append('\n');
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder(intro.length() + legend.length() + months.length() + style.length() + 256);
+        prompt.append(intro)
+                .append("Data (amounts in ").append(Money.BASE_CURRENCY.getCurrencyCode()).append("):\n")
+                .append("Categories: ");
+        boolean first = true;
+        for (AssetCategory category : categories) {
+            if (!first) {
+                prompt.append(", ");
+            }
+            prompt.append(categoryCode(category)).append('=').append(getCategoryLabel(category));
+            first = false;
+        }
+        prompt.append('\n')
+                .append("Holdings (id=name/category):\n").append(legend)
+                .append("Rows per month: id,amount,monthGain,totalGain\n")
+                .append(months)
+                .append('\n')
+                .append(style);
+        return prompt.toString();
+    }
+
+    private AssetPositionDTO biggestWinner(List<AssetPositionDTO> holdings) {
+        AssetPositionDTO winner = null;
+        for (AssetPositionDTO p : holdings) {
+            if (winner == null || p.getMonthlyGain() > winner.getMonthlyGain()) {
+                winner = p;
+            }
+        }
+        return winner;
+    }
+
+    private String format(long minorUnits) {
+        return Money.toMajor(minorUnits).stripTrailingZeros().toPlainString();
+    }
+
+    private String categoryCode(AssetCategory category) {
+        return switch (category) {
+            case AH_Stock -> "AH";
+            case US_Stock -> "US";
+            case Commodity -> "CM";
+            case Bond -> "BD";
+            case Wealth -> "WM";
+            case Cash -> "CS";
+        };
+    }
+
+    private String getCategoryLabel(AssetCategory category) {
+        return switch (category) {
+            case AH_Stock -> "A/H股基金";
+            case US_Stock -> "美股基金";
+            case Commodity -> "商品";
+            case Bond -> "债券基金";
+            case Wealth -> "理财";
+            case Cash -> "活钱";
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.moneylog.ai.service;
+
+/**
+ * Thrown when a Gemini call is turned away because too many callers already wait for a
+ * request slot. Load shedding rather than an upstream error.
+ */
+class GeminiBusyException extends RuntimeException {
+
+    GeminiBusyException(String message) {
+        super(message);
+    }
+}
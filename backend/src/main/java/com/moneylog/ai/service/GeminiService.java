@@ -8,22 +8,44 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 @Slf4j
 public class GeminiService {
     
+    static final String API_KEY_MISSING = "API Key missing. Please configure your environment.";
+    static final String UNAVAILABLE = "Unable to generate AI summary at this time.";
+    
     private final WebClient webClient;
+    private final DiaryPromptBuilder promptBuilder;
     private final String apiKey;
     private final String model;
+    private final int maxMonthsPerRequest;
+    private final long minIntervalMillis;
+    private final int maxWaiters;
+    private long nextRequestAt;
+    private int waiters;
     
     public GeminiService(
+            DiaryPromptBuilder promptBuilder,
             @Value("${gemini.api.key}") String apiKey,
             @Value("${gemini.api.base-url}") String baseUrl,
-            @Value("${gemini.api.model}") String model) {
+            @Value("${gemini.api.model}") String model,
+            @Value("${gemini.prompt.max-months-per-request:12}") int maxMonthsPerRequest,
+            @Value("${gemini.api.min-interval-ms:0}") long minIntervalMillis,
+            @Value("${gemini.api.max-waiters:4}") int maxWaiters) {
+        this.promptBuilder = promptBuilder;
         this.apiKey = apiKey;
         this.model = model;
+        this.maxMonthsPerRequest = Math.max(1, maxMonthsPerRequest);
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxWaiters = Math.max(0, maxWaiters);
         
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
@@ -32,87 +54,116 @@ public class GeminiService {
                 .build();
     }
     
-    public String generateFinancialDiary(String date, List<AssetPositionDTO> positions) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-api-key-here")) {
-            log.warn("Gemini API key not configured");
-            return "API Key missing. Please configure your environment.";
+    /**
+     * Generates diaries in batches of {@code gemini.prompt.max-months-per-request} months per
+     * upstream call. Months that could not be generated are omitted, so callers that persist
+     * the result never store a placeholder.
+     */
+    public Map<String, String> tryGenerateFinancialDiaries(Map<String, List<AssetPositionDTO>> positionsByMonth) {
+        Map<String, String> diaries = new LinkedHashMap<>();
+        if (!isApiKeyConfigured()) {
+            return diaries;
         }
         
-        double totalAssets = positions.stream()
-                .mapToDouble(AssetPositionDTO::getAmount)
-                .sum();
-        
-        double totalMonthlyGain = positions.stream()
-                .mapToDouble(AssetPositionDTO::getMonthlyGain)
-                .sum();
-        
-        StringBuilder summary = new StringBuilder();
-        positions.forEach(p -> {
-            String categoryLabel = getCategoryLabel(p.getCategory());
-            summary.append(String.format("- %s (%s): Amount %.2f, Month Gain %.2f, Total Gain %.2f\n",
-                    p.getName(), categoryLabel, p.getAmount(), p.getMonthlyGain(), p.getTotalGain()));
-        });
-        
-        String prompt = String.format(
-            "You are a helpful, encouraging personal finance assistant. " +
-            "Write a short, \"Monthly Financial Diary\" entry (max 100 words) for this month based on this data.\n\n" +
-            "Data:\n" +
-            "Month: %s\n" +
-            "Total Assets: %.2f\n" +
-            "Total Monthly Gain: %.2f\n" +
-            "Holdings:\n" +
-            "%s\n\n" +
-            "Style: Warm, concise, and professional. Mention the biggest winner of the month. " +
-            "If the monthly result is positive, be celebratory. If negative, be reassuring and focus on long-term accumulation. " +
-            "Output straight text, no markdown headers.",
-            date, totalAssets, totalMonthlyGain, summary.toString()
-        );
-        
-        try {
-            GeminiRequest request = new GeminiRequest();
-            GeminiRequest.Content content = new GeminiRequest.Content();
-            GeminiRequest.Part part = new GeminiRequest.Part();
-            part.setText(prompt);
-            content.setParts(List.of(part));
-            request.setContents(List.of(content));
-            
-            // Build the correct Gemini API URL: /v1beta/models/{model}:generateContent?key={apiKey}
-            GeminiResponse response = webClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/models/{model}:generateContent")
-                            .queryParam("key", apiKey)
-                            .build(model))
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(GeminiResponse.class)
-                    .block();
+        SortedMap<String, List<AssetPositionDTO>> sorted = new TreeMap<>(positionsByMonth);
+        List<String> months = new ArrayList<>(sorted.keySet());
+        for (int from = 0; from < months.size(); from += maxMonthsPerRequest) {
+            List<String> chunk = months.subList(from, Math.min(from + maxMonthsPerRequest, months.size()));
+            SortedMap<String, List<AssetPositionDTO>> batch = new TreeMap<>();
+            chunk.forEach(month -> batch.put(month, sorted.get(month)));
             
-            if (response != null && 
-                response.getCandidates() != null && 
-                !response.getCandidates().isEmpty() &&
-                response.getCandidates().get(0).getContent() != null &&
-                response.getCandidates().get(0).getContent().getParts() != null &&
-                !response.getCandidates().get(0).getContent().getParts().isEmpty()) {
-                
-                return response.getCandidates().get(0).getContent().getParts().get(0).getText();
+            try {
+                String prompt = promptBuilder.buildMultiMonthPrompt(batch);
+                Map<String, String> generated = promptBuilder.splitMultiMonthResponse(generateContent(prompt), chunk);
+                log.debug("Generated {} of {} diaries in one request", generated.size(), chunk.size());
+                diaries.putAll(generated);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted after {} of {} diaries", diaries.size(), months.size());
+                break;
+            } catch (GeminiBusyException e) {
+                // Expected under load, not an upstream failure; later batches would be turned away too
+                log.warn("Stopped after {} of {} diaries: {}", diaries.size(), months.size(), e.getMessage());
+                break;
+            } catch (Exception e) {
+                log.error("Gemini API Error", e);
+            }
+        }
+        return diaries;
+    }
+    
+    public boolean isApiKeyConfigured() {
+        return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
+    }
+    
+    /**
+     * Spaces upstream calls at least {@code gemini.api.min-interval-ms} apart across all
+     * callers, so scheduled batches and interactive requests share one request quota.
+     * At most {@code gemini.api.max-waiters} callers wait for a later slot; beyond that the
+     * call is rejected rather than parking another request thread.
+     */
+    private void awaitRequestSlot() throws InterruptedException {
+        if (minIntervalMillis <= 0) {
+            return;
+        }
+        long waitMillis;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, nextRequestAt);
+            waitMillis = slot - now;
+            if (waitMillis > 0 && waiters >= maxWaiters) {
+                throw new GeminiBusyException("Too many requests waiting for a Gemini request slot");
+            }
+            nextRequestAt = slot + minIntervalMillis;
+            if (waitMillis > 0) {
+                waiters++;
+            }
+        }
+        if (waitMillis > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } finally {
+                synchronized (this) {
+                    waiters--;
+                }
             }
-            
-            return "No analysis generated.";
-        } catch (Exception e) {
-            log.error("Gemini API Error", e);
-            return "Unable to generate AI summary at this time.";
         }
     }
     
-    private String getCategoryLabel(com.moneylog.ai.entity.AssetCategory category) {
-        return switch (category) {
-            case AH_Stock -> "A/H股基金";
-            case US_Stock -> "美股基金";
-            case Commodity -> "商品";
-            case Bond -> "债券基金";
-            case Wealth -> "理财";
-            case Cash -> "活钱";
-        };
+    /**
+     * Sends a single-turn prompt and returns the first candidate's text, or null if there is none.
+     */
+    private String generateContent(String prompt) throws InterruptedException {
+        awaitRequestSlot();
+        
+        GeminiRequest request = new GeminiRequest();
+        GeminiRequest.Content content = new GeminiRequest.Content();
+        GeminiRequest.Part part = new GeminiRequest.Part();
+        part.setText(prompt);
+        content.setParts(List.of(part));
+        request.setContents(List.of(content));
+        
+        // Build the correct Gemini API URL: /v1beta/models/{model}:generateContent?key={apiKey}
+        GeminiResponse response = webClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/models/{model}:generateContent")
+                        .queryParam("key", apiKey)
+                        .build(model))
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(GeminiResponse.class)
+                .block();
+        
+        if (response != null && 
+            response.getCandidates() != null && 
+            !response.getCandidates().isEmpty() &&
+            response.getCandidates().get(0).getContent() != null &&
+            response.getCandidates().get(0).getContent().getParts() != null &&
+            !response.getCandidates().get(0).getContent().getParts().isEmpty()) {
+            
+            return response.getCandidates().get(0).getContent().getParts().get(0).getText();
+        }
+        
+        return null;
     }
 }
-
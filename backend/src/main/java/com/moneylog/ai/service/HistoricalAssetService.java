@@ -1,7 +1,12 @@
 package com.moneylog.ai.service;
 
+import com.moneylog.ai.dto.HistoricalAssetColumnsDTO;
 import com.moneylog.ai.dto.HistoricalAssetRecordDTO;
+import com.moneylog.ai.dto.HistoryAnalyticsDTO;
+import com.moneylog.ai.dto.HistoryColumnsDTO;
 import com.moneylog.ai.dto.HistoryRecordDTO;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.entity.ChangeOperation;
 import com.moneylog.ai.entity.HistoricalAssetRecord;
 import com.moneylog.ai.repository.HistoricalAssetRecordRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,8 +14,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +27,9 @@ import java.util.stream.Collectors;
 public class HistoricalAssetService {
 
     private final HistoricalAssetRecordRepository historicalAssetRecordRepository;
+    private final ChangeFeedService changeFeedService;
+    private final PrecomputeService precomputeService;
+    private final HistoryColumnStore historyColumnStore;
 
     @Transactional(readOnly = true)
     public List<HistoricalAssetRecordDTO> getRecordsByMonth(String month) {
@@ -28,6 +39,26 @@ public class HistoricalAssetService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public HistoricalAssetColumnsDTO getRecordColumnsByMonth(String month) {
+        return convertRecordsToColumns(historicalAssetRecordRepository.findByMonthOrderByCategoryAsc(month));
+    }
+
+    @Transactional(readOnly = true)
+    public List<HistoricalAssetRecordDTO> getRecordsInRange(String fromMonth, String toMonth) {
+        List<HistoricalAssetRecord> records =
+                historicalAssetRecordRepository.findByMonthBetweenOrderByMonthAscCategoryAsc(fromMonth, toMonth);
+        return records.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public HistoricalAssetColumnsDTO getRecordColumnsInRange(String fromMonth, String toMonth) {
+        return convertRecordsToColumns(
+                historicalAssetRecordRepository.findByMonthBetweenOrderByMonthAscCategoryAsc(fromMonth, toMonth));
+    }
+
     @Transactional
     public HistoricalAssetRecordDTO saveRecord(String month, HistoricalAssetRecordDTO dto) {
         HistoricalAssetRecord record = new HistoricalAssetRecord();
@@ -39,6 +70,7 @@ public class HistoricalAssetService {
         record.setTotalGain(dto.getTotalGain());
 
         HistoricalAssetRecord saved = historicalAssetRecordRepository.save(record);
+        changeFeedService.record(ChangeOperation.INSERT, saved);
         return convertToDTO(saved);
     }
 
@@ -53,7 +85,9 @@ public class HistoricalAssetService {
         record.setMonthlyGain(dto.getMonthlyGain());
         record.setTotalGain(dto.getTotalGain());
 
-        HistoricalAssetRecord saved = historicalAssetRecordRepository.save(record);
+        // Flushed first so the row is locked before the change sequence, as in the bulk writers
+        HistoricalAssetRecord saved = historicalAssetRecordRepository.saveAndFlush(record);
+        changeFeedService.record(ChangeOperation.UPDATE, saved);
         return convertToDTO(saved);
     }
 
@@ -62,34 +96,58 @@ public class HistoricalAssetService {
         HistoricalAssetRecord record = historicalAssetRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("Record not found for month: " + month + " and id: " + recordId));
 
+        // Flushed first so the row is locked before the change sequence, as in the bulk writers
         historicalAssetRecordRepository.delete(record);
+        historicalAssetRecordRepository.flush();
+        changeFeedService.record(ChangeOperation.DELETE, record);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Answered from the in-memory column store without a database round trip; the
+     * precomputed summaries and a full aggregation are fallbacks while it loads.
+     */
     public List<HistoryRecordDTO> getHistory() {
+        Optional<List<HistoryRecordDTO>> inMemory = historyColumnStore.getHistory();
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+
+        Optional<List<HistoryRecordDTO>> precomputed = precomputeService.getHistoryIfCurrent();
+        if (precomputed.isPresent()) {
+            return precomputed.get();
+        }
+
         List<HistoricalAssetRecord> allRecords = historicalAssetRecordRepository.findAll();
 
-        // Group by month and calculate totals
-        return allRecords.stream()
-                .collect(Collectors.groupingBy(HistoricalAssetRecord::getMonth))
-                .entrySet()
-                .stream()
-                .map(entry -> {
-                    String month = entry.getKey();
-                    List<HistoricalAssetRecord> records = entry.getValue();
-                    
-                    double totalAssets = records.stream()
-                            .mapToDouble(HistoricalAssetRecord::getAmount)
-                            .sum();
-                            
-                    double totalGain = records.stream()
-                            .mapToDouble(HistoricalAssetRecord::getMonthlyGain)
-                            .sum();
-                            
-                    return new HistoryRecordDTO(month, totalAssets, totalGain);
-                })
-                .sorted(Comparator.comparing(HistoryRecordDTO::getMonth))
-                .collect(Collectors.toList());
+        // Group by month and sum minor units; TreeMap keeps months sorted
+        Map<String, long[]> totalsByMonth = new TreeMap<>();
+        for (HistoricalAssetRecord record : allRecords) {
+            long[] totals = totalsByMonth.computeIfAbsent(record.getMonth(), m -> new long[2]);
+            totals[0] = Math.addExact(totals[0], record.getAmount());
+            totals[1] = Math.addExact(totals[1], record.getMonthlyGain());
+        }
+
+        List<HistoryRecordDTO> history = new ArrayList<>(totalsByMonth.size());
+        totalsByMonth.forEach((month, totals) -> history.add(new HistoryRecordDTO(month, totals[0], totals[1])));
+        return history;
+    }
+
+    public HistoryColumnsDTO getHistoryColumns() {
+        return HistoryColumnsDTO.of(getHistory());
+    }
+
+    public HistoryAnalyticsDTO getAnalytics(String fromMonth, String toMonth, List<AssetCategory> categories,
+                                            HistoryColumnStore.GroupBy groupBy) {
+        Optional<HistoryAnalyticsDTO> inMemory = historyColumnStore.scan(fromMonth, toMonth, categories, groupBy);
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+
+        // Store still loading: same scan over the records, read the way getHistory does
+        List<HistoricalAssetRecord> records = fromMonth != null && toMonth != null
+                ? historicalAssetRecordRepository.findByMonthBetweenOrderByMonthAscCategoryAsc(fromMonth, toMonth)
+                : historicalAssetRecordRepository.findAll();
+        return HistoryColumnStore.scan(records, fromMonth, toMonth, categories, groupBy);
     }
 
     private HistoricalAssetRecordDTO convertToDTO(HistoricalAssetRecord record) {
@@ -103,4 +161,26 @@ public class HistoricalAssetService {
                 record.getTotalGain()
         );
     }
+
+    private HistoricalAssetColumnsDTO convertRecordsToColumns(List<HistoricalAssetRecord> records) {
+        int n = records.size();
+        long[] ids = new long[n];
+        String[] months = new String[n];
+        String[] names = new String[n];
+        AssetCategory[] categories = new AssetCategory[n];
+        long[] amounts = new long[n];
+        long[] monthlyGains = new long[n];
+        long[] totalGains = new long[n];
+        for (int i = 0; i < n; i++) {
+            HistoricalAssetRecord record = records.get(i);
+            ids[i] = record.getId();
+            months[i] = record.getMonth();
+            names[i] = record.getAssetName();
+            categories[i] = record.getCategory();
+            amounts[i] = record.getAmount();
+            monthlyGains[i] = record.getMonthlyGain();
+            totalGains[i] = record.getTotalGain();
+        }
+        return new HistoricalAssetColumnsDTO(n, ids, months, names, categories, amounts, monthlyGains, totalGains);
+    }
 }
\ No newline at end of file
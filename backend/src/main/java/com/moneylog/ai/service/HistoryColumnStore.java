@@ -0,0 +1,465 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.dto.ChangeDTO;
+import com.moneylog.ai.dto.ChangeFeedDTO;
+import com.moneylog.ai.dto.HistoricalAssetRecordDTO;
+import com.moneylog.ai.dto.HistoryAnalyticsDTO;
+import com.moneylog.ai.dto.HistoryRecordDTO;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.entity.ChangeOperation;
+import com.moneylog.ai.entity.HistoricalAssetRecord;
+import com.moneylog.ai.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process columnar copy of historical_asset_records for analytical scans. Each column
+ * is a primitive array indexed by row; months are dictionary-encoded to int codes and
+ * categories stored as {@link AssetCategory} ordinals, so a scan touches only the arrays
+ * it needs and allocates nothing per row.
+ * <p>
+ * Loaded on startup with one JDBC pass, then kept current from committed change-feed
+ * events, applied strictly in seq order. An event that arrives ahead of a missing one
+ * waits. Changes committed on other nodes never arrive as events, so a periodic catch-up
+ * reads whatever follows the applied seq from change_log, which also closes such gaps.
+ */
+@Service
+@Slf4j
+public class HistoryColumnStore {
+
+    public enum GroupBy { MONTH, CATEGORY, MONTH_CATEGORY }
+
+    private static final String SELECT_ALL =
+            "SELECT id, month, asset_name, category, amount, monthly_gain, total_gain FROM historical_asset_records";
+
+    private static final AssetCategory[] CATEGORIES = AssetCategory.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CATCH_UP_PAGE_SIZE = 1000;
+    // Dropped events are re-read by the catch-up, so this only caps memory
+    private static final int MAX_PENDING = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedService changeFeedService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Columns columns = new Columns(0);
+    private long appliedSeq;
+    private final TreeMap<Long, ChangeDTO> pending = new TreeMap<>();
+    private boolean reloading;
+
+    private volatile boolean loaded;
+
+    public HistoryColumnStore(JdbcTemplate jdbcTemplate, ChangeFeedService changeFeedService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeFeedService = changeFeedService;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Off the startup thread, so readiness does not wait for the scan; readers use the
+     * fallbacks until it finishes, and a failure leaves them there instead of stopping startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("History column store load failed; serving from the database until the next reload", e);
+        }
+    }
+
+    /**
+     * Rebuilds the store from the database. Needed after bulk writes that bypass the
+     * change feed, such as demo seeding.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        setReloading(true);
+        // Changes up to this seq are committed, so the scan below includes them; later
+        // ones may be included too, and replaying them in order is harmless
+        long snapshotSeq = changeFeedService.getLatestSeq();
+        Columns fresh = new Columns(INITIAL_CAPACITY);
+        try {
+            jdbcTemplate.query(SELECT_ALL, rs -> {
+                fresh.upsert(
+                        rs.getLong(1),
+                        rs.getString(2),
+                        rs.getString(3),
+                        AssetCategory.valueOf(rs.getString(4)),
+                        Money.toMinor(rs.getBigDecimal(5)),
+                        Money.toMinor(rs.getBigDecimal(6)),
+                        Money.toMinor(rs.getBigDecimal(7)));
+            });
+        } catch (RuntimeException e) {
+            // Keep serving the previous columns and catch up on what arrived meanwhile
+            setReloading(false);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            columns = fresh;
+            appliedSeq = snapshotSeq;
+            pending.headMap(snapshotSeq, true).clear();
+            reloading = false;
+            drainPending();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded history column store: {} rows, {} months in {} ms",
+                fresh.size, fresh.monthDict.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @TransactionalEventListener
+    public void onChangeCommitted(ChangeDTO change) {
+        lock.writeLock().lock();
+        try {
+            offer(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed changes the events did not deliver: those from other nodes, and
+     * any dropped while {@link #pending} was full. Reads only change_log, never the table.
+     */
+    @Scheduled(fixedDelayString = "${moneylog.snapshot.repair-interval-ms:5000}")
+    public void catchUp() {
+        if (!loaded) {
+            return;
+        }
+        long since;
+        lock.readLock().lock();
+        try {
+            since = appliedSeq;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changeFeedService.getLatestSeq() <= since) {
+            return;
+        }
+
+        int fetched = 0;
+        ChangeFeedDTO page;
+        do {
+            page = changeFeedService.getChangesSince(since, CATCH_UP_PAGE_SIZE);
+            lock.writeLock().lock();
+            try {
+                page.getChanges().forEach(this::offer);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            fetched += page.getChanges().size();
+            since = page.getCursor();
+        } while (page.isHasMore());
+        log.debug("History column store caught up on {} changes from change_log", fetched);
+    }
+
+    /**
+     * Totals per month in month order, or empty while the store is still loading.
+     */
+    public Optional<List<HistoryRecordDTO>> getHistory() {
+        return scan(null, null, null, GroupBy.MONTH).map(byMonth -> {
+            List<HistoryRecordDTO> history = new ArrayList<>(byMonth.getMonth().length);
+            for (int i = 0; i < byMonth.getMonth().length; i++) {
+                history.add(new HistoryRecordDTO(byMonth.getMonth()[i], byMonth.getTotalAssets()[i], byMonth.getTotalGain()[i]));
+            }
+            return history;
+        });
+    }
+
+    /**
+     * One pass over the columns: keeps rows whose month lies in [fromMonth, toMonth] and whose
+     * category is in {@code categories} (null bounds and null categories match everything),
+     * then sums amount and monthly gain per group. Groups are in month, then category order.
+     *
+     * @return empty while the store is still loading
+     */
+    public Optional<HistoryAnalyticsDTO> scan(String fromMonth, String toMonth, Collection<AssetCategory> categories,
+                                              GroupBy groupBy) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(scan(columns, fromMonth, toMonth, categories, groupBy));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The same scan over records read from the repository, for callers that cannot wait
+     * for the store to load.
+     */
+    public static HistoryAnalyticsDTO scan(List<HistoricalAssetRecord> records, String fromMonth, String toMonth,
+                                           Collection<AssetCategory> categories, GroupBy groupBy) {
+        Columns c = new Columns(records.size());
+        for (HistoricalAssetRecord record : records) {
+            c.upsert(record.getId(), record.getMonth(), record.getAssetName(), record.getCategory(),
+                    record.getAmount(), record.getMonthlyGain(), record.getTotalGain());
+        }
+        return scan(c, fromMonth, toMonth, categories, groupBy);
+    }
+
+    private static HistoryAnalyticsDTO scan(Columns c, String fromMonth, String toMonth,
+                                            Collection<AssetCategory> categories, GroupBy groupBy) {
+        boolean[] categoryMatch = new boolean[CATEGORIES.length];
+        for (AssetCategory category : CATEGORIES) {
+            categoryMatch[category.ordinal()] = categories == null || categories.isEmpty() || categories.contains(category);
+        }
+
+        int monthCount = c.monthDict.size();
+        boolean[] monthMatch = new boolean[monthCount];
+        for (int m = 0; m < monthCount; m++) {
+            String month = c.monthDict.get(m);
+            monthMatch[m] = (fromMonth == null || month.compareTo(fromMonth) >= 0)
+                    && (toMonth == null || month.compareTo(toMonth) <= 0);
+        }
+
+        int groupCount = switch (groupBy) {
+            case MONTH -> monthCount;
+            case CATEGORY -> CATEGORIES.length;
+            case MONTH_CATEGORY -> monthCount * CATEGORIES.length;
+        };
+        long[] assets = new long[groupCount];
+        long[] gains = new long[groupCount];
+        int[] counts = new int[groupCount];
+
+        int[] monthCodes = c.monthCodes;
+        byte[] categoryOrdinals = c.categories;
+        long[] amounts = c.amounts;
+        long[] monthlyGains = c.monthlyGains;
+        for (int i = 0; i < c.size; i++) {
+            int m = monthCodes[i];
+            int cat = categoryOrdinals[i];
+            if (!monthMatch[m] || !categoryMatch[cat]) {
+                continue;
+            }
+            int g = switch (groupBy) {
+                case MONTH -> m;
+                case CATEGORY -> cat;
+                case MONTH_CATEGORY -> m * CATEGORIES.length + cat;
+            };
+            assets[g] = Math.addExact(assets[g], amounts[i]);
+            gains[g] = Math.addExact(gains[g], monthlyGains[i]);
+            counts[g]++;
+        }
+
+        return toResult(c, groupBy, assets, gains, counts);
+    }
+
+    private static HistoryAnalyticsDTO toResult(Columns c, GroupBy groupBy, long[] assets, long[] gains, int[] counts) {
+        int[] monthOrder = groupBy == GroupBy.CATEGORY ? new int[]{0} : c.sortedMonthCodes();
+        int categoryCount = groupBy == GroupBy.MONTH ? 1 : CATEGORIES.length;
+
+        int n = 0;
+        for (int g = 0; g < counts.length; g++) {
+            if (counts[g] > 0) {
+                n++;
+            }
+        }
+        String[] months = groupBy == GroupBy.CATEGORY ? null : new String[n];
+        AssetCategory[] categories = groupBy == GroupBy.MONTH ? null : new AssetCategory[n];
+        long[] totalAssets = new long[n];
+        long[] totalGain = new long[n];
+        int[] holdings = new int[n];
+
+        int out = 0;
+        for (int m : monthOrder) {
+            for (int cat = 0; cat < categoryCount; cat++) {
+                int g = switch (groupBy) {
+                    case MONTH -> m;
+                    case CATEGORY -> cat;
+                    case MONTH_CATEGORY -> m * CATEGORIES.length + cat;
+                };
+                if (counts[g] == 0) {
+                    continue;
+                }
+                if (months != null) {
+                    months[out] = c.monthDict.get(m);
+                }
+                if (categories != null) {
+                    categories[out] = CATEGORIES[cat];
+                }
+                totalAssets[out] = assets[g];
+                totalGain[out] = gains[g];
+                holdings[out] = counts[g];
+                out++;
+            }
+        }
+        return new HistoryAnalyticsDTO(months, categories, totalAssets, totalGain, holdings);
+    }
+
+    private void setReloading(boolean value) {
+        lock.writeLock().lock();
+        try {
+            reloading = value;
+            if (!value && loaded) {
+                drainPending();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void offer(ChangeDTO change) {
+        if (change.getSeq() <= appliedSeq) {
+            return;
+        }
+        if (pending.size() >= MAX_PENDING && !pending.containsKey(change.getSeq())) {
+            log.debug("History column store dropping change {}, catch-up will re-read it", change.getSeq());
+            return;
+        }
+        pending.put(change.getSeq(), change);
+        // While loading or reloading, changes wait here; the new columns may or may not include them
+        if (loaded && !reloading) {
+            drainPending();
+        }
+    }
+
+    private void drainPending() {
+        while (!pending.isEmpty() && pending.firstKey() == appliedSeq + 1) {
+            apply(pending.pollFirstEntry().getValue());
+            appliedSeq++;
+        }
+    }
+
+    private void apply(ChangeDTO change) {
+        if (change.getOp() == ChangeOperation.DELETE) {
+            columns.remove(change.getId());
+            return;
+        }
+        HistoricalAssetRecordDTO record = change.getRecord();
+        columns.upsert(record.getId(), record.getMonth(), record.getName(), record.getCategory(),
+                record.getAmount(), record.getMonthlyGain(), record.getTotalGain());
+    }
+
+    /**
+     * Column arrays plus the month dictionary. Deletes move the last row into the gap,
+     * so rows stay dense and scans need no tombstone checks.
+     */
+    private static final class Columns {
+        private long[] ids;
+        private int[] monthCodes;
+        private byte[] categories;
+        private String[] names;
+        private long[] amounts;
+        private long[] monthlyGains;
+        private long[] totalGains;
+        private int size;
+
+        private final Map<Long, Integer> rowById = new HashMap<>();
+        private final List<String> monthDict = new ArrayList<>();
+        private final Map<String, Integer> monthCodeByValue = new HashMap<>();
+        private int[] sortedMonthCodes = new int[0];
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            monthCodes = new int[capacity];
+            categories = new byte[capacity];
+            names = new String[capacity];
+            amounts = new long[capacity];
+            monthlyGains = new long[capacity];
+            totalGains = new long[capacity];
+        }
+
+        void upsert(long id, String month, String name, AssetCategory category,
+                    long amount, long monthlyGain, long totalGain) {
+            Integer existing = rowById.get(id);
+            int row;
+            if (existing != null) {
+                row = existing;
+            } else {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowById.put(id, row);
+            }
+            ids[row] = id;
+            monthCodes[row] = encodeMonth(month);
+            categories[row] = (byte) category.ordinal();
+            names[row] = name;
+            amounts[row] = amount;
+            monthlyGains[row] = monthlyGain;
+            totalGains[row] = totalGain;
+        }
+
+        void remove(long id) {
+            Integer removed = rowById.remove(id);
+            if (removed == null) {
+                return;
+            }
+            int row = removed;
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                monthCodes[row] = monthCodes[last];
+                categories[row] = categories[last];
+                names[row] = names[last];
+                amounts[row] = amounts[last];
+                monthlyGains[row] = monthlyGains[last];
+                totalGains[row] = totalGains[last];
+                rowById.put(ids[row], row);
+            }
+            names[last] = null;
+        }
+
+        int[] sortedMonthCodes() {
+            return sortedMonthCodes;
+        }
+
+        private int encodeMonth(String month) {
+            Integer code = monthCodeByValue.get(month);
+            if (code != null) {
+                return code;
+            }
+            int newCode = monthDict.size();
+            monthDict.add(month);
+            monthCodeByValue.put(month, newCode);
+            // New months are rare, so re-sorting the small dictionary here keeps scans sort-free
+            sortedMonthCodes = monthCodeByValue.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .mapToInt(Map.Entry::getValue)
+                    .toArray();
+            return newCode;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, Math.max(INITIAL_CAPACITY, ids.length * 2));
+            ids = Arrays.copyOf(ids, newCapacity);
+            monthCodes = Arrays.copyOf(monthCodes, newCapacity);
+            categories = Arrays.copyOf(categories, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            amounts = Arrays.copyOf(amounts, newCapacity);
+            monthlyGains = Arrays.copyOf(monthlyGains, newCapacity);
+            totalGains = Arrays.copyOf(totalGains, newCapacity);
+        }
+    }
+}
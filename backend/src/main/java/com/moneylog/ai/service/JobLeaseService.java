@@ -0,0 +1,181 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.entity.ScheduledJobState;
+import com.moneylog.ai.repository.ScheduledJobStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Runs scheduled jobs on at most one node at a time. Each job has a row in
+ * scheduled_job_state; a node becomes leader for one run by claiming the row's lease
+ * with a conditional UPDATE, so no extra lock service is needed. Leases expire, so a
+ * node that dies mid-run blocks the job only until its lease runs out.
+ */
+@Service
+@Slf4j
+public class JobLeaseService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ScheduledJobStateRepository jobStateRepository;
+    private final TransactionTemplate requiresNew;
+    private final String nodeId;
+    private final Set<String> localRuns = ConcurrentHashMap.newKeySet();
+
+    public JobLeaseService(ScheduledJobStateRepository jobStateRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.jobStateRepository = jobStateRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Runs {@code job} if this node can claim the lease. The job receives the watermark
+     * stored by the previous successful run ({@link ScheduledJobState#NEVER_RUN} at first)
+     * and returns the one to store; a failed run keeps the old watermark.
+     *
+     * @return false if the lease is held, by this node or another
+     */
+    public boolean runExclusive(String jobName, Duration lease, LongUnaryOperator job) {
+        if (!claim(jobName, lease)) {
+            return false;
+        }
+
+        ScheduledJobState state = getState(jobName);
+        long watermark = state.getWatermark();
+        String status = "SUCCESS";
+        String error = null;
+        long started = System.currentTimeMillis();
+        try {
+            watermark = job.applyAsLong(watermark);
+        } catch (RuntimeException e) {
+            log.error("Scheduled job {} failed", jobName, e);
+            status = "FAILED";
+            error = truncate(String.valueOf(e.getMessage()));
+        }
+
+        release(jobName, status, error, watermark, state.getResetGeneration());
+        log.info("Scheduled job {} finished with {} in {} ms", jobName, status, System.currentTimeMillis() - started);
+        return true;
+    }
+
+    /**
+     * Runs an on-demand {@code job} under the same lease and returns its result. Unlike
+     * {@link #runExclusive}, failures propagate to the caller and the watermark is left as is.
+     *
+     * @return empty if the lease is held, by this node or another
+     */
+    public <T> Optional<T> callExclusive(String jobName, Duration lease, Supplier<T> job) {
+        if (!claim(jobName, lease)) {
+            return Optional.empty();
+        }
+
+        ScheduledJobState state = getState(jobName);
+        String status = "FAILED";
+        String error = null;
+        try {
+            T result = job.get();
+            status = "SUCCESS";
+            return Optional.ofNullable(result);
+        } catch (RuntimeException e) {
+            error = truncate(String.valueOf(e.getMessage()));
+            throw e;
+        } finally {
+            release(jobName, status, error, state.getWatermark(), state.getResetGeneration());
+        }
+    }
+
+    /**
+     * Makes the next run of {@code jobName} start over from {@link ScheduledJobState#NEVER_RUN},
+     * for writers that bypass change_log. Does not wait for the lease: a run in progress sees
+     * the bumped reset generation when it releases and leaves the reset watermark in place.
+     */
+    public void resetWatermark(String jobName) {
+        requiresNew.executeWithoutResult(status ->
+                jobStateRepository.resetWatermark(jobName, ScheduledJobState.NEVER_RUN));
+    }
+
+    public long getWatermark(String jobName) {
+        return getState(jobName).getWatermark();
+    }
+
+    private ScheduledJobState getState(String jobName) {
+        return jobStateRepository.findById(jobName).orElseGet(() -> {
+            ScheduledJobState state = new ScheduledJobState();
+            state.setName(jobName);
+            state.setWatermark(ScheduledJobState.NEVER_RUN);
+            return state;
+        });
+    }
+
+    /**
+     * The lease row only excludes other nodes (tryAcquire lets the owner re-claim), so runs
+     * on this node are also tracked locally.
+     */
+    private boolean claim(String jobName, Duration lease) {
+        if (!localRuns.add(jobName)) {
+            log.debug("Skipping job {}: already running on this node", jobName);
+            return false;
+        }
+        boolean claimed = false;
+        try {
+            createStateIfMissing(jobName);
+            LocalDateTime now = LocalDateTime.now();
+            Integer updated = requiresNew.execute(status ->
+                    jobStateRepository.tryAcquire(jobName, nodeId, now, now.plus(lease)));
+            claimed = updated != null && updated > 0;
+        } finally {
+            if (!claimed) {
+                localRuns.remove(jobName);
+            }
+        }
+        if (!claimed) {
+            log.debug("Skipping job {}: lease held by another node", jobName);
+        }
+        return claimed;
+    }
+
+    private void release(String jobName, String status, String error, long watermark, long resetGeneration) {
+        try {
+            requiresNew.executeWithoutResult(tx -> jobStateRepository.release(
+                    jobName, nodeId, LocalDateTime.now(), status, error, watermark, resetGeneration));
+        } finally {
+            localRuns.remove(jobName);
+        }
+    }
+
+    private void createStateIfMissing(String jobName) {
+        if (jobStateRepository.existsById(jobName)) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                ScheduledJobState state = new ScheduledJobState();
+                state.setName(jobName);
+                state.setWatermark(ScheduledJobState.NEVER_RUN);
+                jobStateRepository.saveAndFlush(state);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("scheduled_job_state row for {} created concurrently", jobName);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
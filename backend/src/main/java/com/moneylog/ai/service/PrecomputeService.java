@@ -0,0 +1,272 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.dto.AssetPositionDTO;
+import com.moneylog.ai.dto.DiaryDTO;
+import com.moneylog.ai.dto.HistoryRecordDTO;
+import com.moneylog.ai.entity.AiDiary;
+import com.moneylog.ai.entity.HistoricalAssetRecord;
+import com.moneylog.ai.entity.MonthlySummary;
+import com.moneylog.ai.entity.ScheduledJobState;
+import com.moneylog.ai.money.Money;
+import com.moneylog.ai.repository.AiDiaryRepository;
+import com.moneylog.ai.repository.ChangeLogRepository;
+import com.moneylog.ai.repository.HistoricalAssetRecordRepository;
+import com.moneylog.ai.repository.MonthlySummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Off-peak precomputation of history aggregates and AI diaries. Each job picks up the
+ * months touched in change_log since its last run, so a run costs proportional to what
+ * changed; interactive reads serve the stored results while they are current.
+ */
+@Service
+@Slf4j
+public class PrecomputeService {
+
+    static final String AGGREGATES_JOB = "history-aggregates";
+    static final String DIARIES_JOB = "ai-diaries";
+
+    private static final String SUM_BY_MONTH =
+            "SELECT month, SUM(amount) AS total_assets, SUM(monthly_gain) AS total_gain, COUNT(*) AS record_count " +
+            "FROM historical_asset_records WHERE month IN (:months) GROUP BY month";
+
+    private static final int MONTHS_PER_QUERY = 500;
+
+    private final JobLeaseService jobLeaseService;
+    private final ChangeFeedService changeFeedService;
+    private final GeminiService geminiService;
+    private final ChangeLogRepository changeLogRepository;
+    private final HistoricalAssetRecordRepository historicalAssetRecordRepository;
+    private final MonthlySummaryRepository monthlySummaryRepository;
+    private final AiDiaryRepository aiDiaryRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lease;
+    private final int maxDiariesPerRun;
+    private final Map<String, CompletableFuture<DiaryDTO>> diaryGenerations = new ConcurrentHashMap<>();
+
+    public PrecomputeService(
+            JobLeaseService jobLeaseService,
+            ChangeFeedService changeFeedService,
+            GeminiService geminiService,
+            ChangeLogRepository changeLogRepository,
+            HistoricalAssetRecordRepository historicalAssetRecordRepository,
+            MonthlySummaryRepository monthlySummaryRepository,
+            AiDiaryRepository aiDiaryRepository,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${moneylog.scheduler.lease-minutes:30}") long leaseMinutes,
+            @Value("${moneylog.scheduler.diaries.max-per-run:2}") int maxDiariesPerRun) {
+        this.jobLeaseService = jobLeaseService;
+        this.changeFeedService = changeFeedService;
+        this.geminiService = geminiService;
+        this.changeLogRepository = changeLogRepository;
+        this.historicalAssetRecordRepository = historicalAssetRecordRepository;
+        this.monthlySummaryRepository = monthlySummaryRepository;
+        this.aiDiaryRepository = aiDiaryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lease = Duration.ofMinutes(leaseMinutes);
+        this.maxDiariesPerRun = maxDiariesPerRun;
+    }
+
+    @Scheduled(cron = "${moneylog.scheduler.aggregates.cron:0 */10 * * * *}")
+    public void refreshHistoryAggregates() {
+        jobLeaseService.runExclusive(AGGREGATES_JOB, lease, this::refreshAggregatesSince);
+    }
+
+    @Scheduled(cron = "${moneylog.scheduler.diaries.cron:0 30 2 * * *}")
+    public void precomputeDiaries() {
+        jobLeaseService.runExclusive(DIARIES_JOB, lease, this::precomputeDiariesSince);
+    }
+
+    /**
+     * Returns the precomputed history if it reflects every committed change, otherwise empty
+     * so the caller falls back to aggregating the raw records.
+     */
+    public Optional<List<HistoryRecordDTO>> getHistoryIfCurrent() {
+        long watermark = jobLeaseService.getWatermark(AGGREGATES_JOB);
+        if (watermark == ScheduledJobState.NEVER_RUN || watermark < changeFeedService.getLatestSeq()) {
+            return Optional.empty();
+        }
+        List<HistoryRecordDTO> history = monthlySummaryRepository.findAllByOrderByMonthAsc().stream()
+                .map(summary -> new HistoryRecordDTO(summary.getMonth(), summary.getTotalAssets(), summary.getTotalGain()))
+                .collect(Collectors.toList());
+        return Optional.of(history);
+    }
+
+    /**
+     * Serves the stored diary when no change to the month has been committed since it was
+     * generated; otherwise generates it now and stores it for the next reader. Concurrent
+     * requests for the same stale month share one generation.
+     */
+    public DiaryDTO getDiary(String month) {
+        Optional<AiDiary> stored = aiDiaryRepository.findById(month);
+        if (stored.isPresent() && !isStale(stored.get())) {
+            AiDiary diary = stored.get();
+            return new DiaryDTO(month, diary.getContent(), diary.getGeneratedAt(), true);
+        }
+
+        CompletableFuture<DiaryDTO> generation = new CompletableFuture<>();
+        CompletableFuture<DiaryDTO> inFlight = diaryGenerations.putIfAbsent(month, generation);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            DiaryDTO diary = generateDiary(month);
+            generation.complete(diary);
+            return diary;
+        } catch (RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            diaryGenerations.remove(month, generation);
+        }
+    }
+
+    private DiaryDTO generateDiary(String month) {
+        long upTo = changeFeedService.getLatestSeq();
+        Map<String, List<AssetPositionDTO>> positions = loadPositions(List.of(month));
+        if (positions.isEmpty()) {
+            throw new RuntimeException("No records found for month: " + month);
+        }
+        Map<String, String> generated = geminiService.tryGenerateFinancialDiaries(positions);
+        if (!generated.containsKey(month)) {
+            // Not stored, so the next request or the nightly run retries
+            String fallback = geminiService.isApiKeyConfigured() ? GeminiService.UNAVAILABLE : GeminiService.API_KEY_MISSING;
+            return new DiaryDTO(month, fallback, LocalDateTime.now(), false);
+        }
+        AiDiary diary = saveDiary(month, generated.get(month), upTo);
+        return new DiaryDTO(month, diary.getContent(), diary.getGeneratedAt(), false);
+    }
+
+    /**
+     * For bulk writers that bypass change_log: the next aggregates run starts over, and the
+     * stored diaries of the written months are dropped, so nothing stale is served meanwhile.
+     */
+    public void invalidate(Collection<String> months) {
+        jobLeaseService.resetWatermark(AGGREGATES_JOB);
+        aiDiaryRepository.deleteAllById(months);
+    }
+
+    long refreshAggregatesSince(long watermark) {
+        // Everything up to upTo is committed, so the sums read below include it
+        long upTo = changeFeedService.getLatestSeq();
+        if (watermark != ScheduledJobState.NEVER_RUN && watermark >= upTo) {
+            return watermark;
+        }
+
+        List<String> months = watermark == ScheduledJobState.NEVER_RUN
+                ? historicalAssetRecordRepository.findAllMonths()
+                : changeLogRepository.findChangedMonths(watermark, upTo);
+        for (int from = 0; from < months.size(); from += MONTHS_PER_QUERY) {
+            List<String> chunk = months.subList(from, Math.min(from + MONTHS_PER_QUERY, months.size()));
+            transactionTemplate.executeWithoutResult(status -> refreshSummaries(chunk));
+        }
+        log.info("Refreshed history aggregates for {} months up to change {}", months.size(), upTo);
+        return upTo;
+    }
+
+    long precomputeDiariesSince(long watermark) {
+        if (!geminiService.isApiKeyConfigured()) {
+            log.warn("Gemini API key not configured, skipping diary precomputation");
+            return watermark;
+        }
+
+        long upTo = changeFeedService.getLatestSeq();
+        YearMonth current = YearMonth.now();
+        List<String> due = new ArrayList<>();
+        for (YearMonth month : List.of(current.minusMonths(1), current)) {
+            Optional<AiDiary> stored = aiDiaryRepository.findById(month.toString());
+            if ((stored.isEmpty() || isStale(stored.get())) && due.size() < maxDiariesPerRun) {
+                due.add(month.toString());
+            }
+        }
+
+        Map<String, List<AssetPositionDTO>> positions = loadPositions(due);
+        if (!positions.isEmpty()) {
+            // One batched upstream call for all due months
+            Map<String, String> generated = geminiService.tryGenerateFinancialDiaries(positions);
+            generated.forEach((month, content) -> saveDiary(month, content, upTo));
+            log.info("Precomputed {} of {} due diaries", generated.size(), positions.size());
+        }
+        return upTo;
+    }
+
+    private void refreshSummaries(List<String> months) {
+        Map<String, MonthlySummary> summaries = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.query(SUM_BY_MONTH, new MapSqlParameterSource("months", months), rs -> {
+            String month = rs.getString("month");
+            summaries.put(month, new MonthlySummary(
+                    month,
+                    Money.toMinor(rs.getBigDecimal("total_assets")),
+                    Money.toMinor(rs.getBigDecimal("total_gain")),
+                    rs.getInt("record_count"),
+                    now));
+        });
+        monthlySummaryRepository.saveAll(summaries.values());
+
+        // Months whose last record was deleted
+        Set<String> emptied = new HashSet<>(months);
+        emptied.removeAll(summaries.keySet());
+        monthlySummaryRepository.deleteAllById(emptied);
+    }
+
+    private boolean isStale(AiDiary diary) {
+        Long latest = changeLogRepository.findLatestSeqForMonth(diary.getMonth());
+        return latest != null && latest > diary.getSourceSeq();
+    }
+
+    private AiDiary saveDiary(String month, String content, long sourceSeq) {
+        return aiDiaryRepository.save(new AiDiary(month, content, sourceSeq, LocalDateTime.now()));
+    }
+
+    private Map<String, List<AssetPositionDTO>> loadPositions(List<String> months) {
+        Map<String, List<AssetPositionDTO>> positions = new LinkedHashMap<>();
+        for (String month : new TreeSet<>(months)) {
+            List<HistoricalAssetRecord> records = historicalAssetRecordRepository.findByMonthOrderByCategoryAsc(month);
+            if (!records.isEmpty()) {
+                positions.put(month, records.stream()
+                        .map(record -> new AssetPositionDTO(
+                                record.getId(),
+                                record.getAssetName(),
+                                record.getCategory(),
+                                record.getAmount(),
+                                record.getMonthlyGain(),
+                                record.getTotalGain()))
+                        .collect(Collectors.toList()));
+            }
+        }
+        return positions;
+    }
+}
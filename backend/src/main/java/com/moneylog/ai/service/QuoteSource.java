@@ -0,0 +1,17 @@
+package com.moneylog.ai.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Supplies end-of-month unit prices (NAV) keyed by asset name. Only price ratios
+ * between consecutive months are used, so any consistent unit or currency works.
+ */
+public interface QuoteSource {
+
+    /**
+     * @param month YYYY-MM
+     * @return prices by asset name; empty when the month has no quotes
+     */
+    Map<String, BigDecimal> getMonthEndPrices(String month);
+}
@@ -0,0 +1,473 @@
+package com.moneylog.ai.service;
+
+import com.moneylog.ai.dto.RevaluationResultDTO;
+import com.moneylog.ai.entity.AssetCategory;
+import com.moneylog.ai.entity.ChangeOperation;
+import com.moneylog.ai.entity.HistoricalAssetRecord;
+import com.moneylog.ai.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Month-end close from a {@link QuoteSource}. For every holding held at the end of the
+ * previous month, the month's value becomes the previous amount scaled by the price
+ * ratio; monthly and total gain follow from it. Both historical_asset_records and
+ * asset_positions are revalued. Only existing rows are updated: a holding without a row
+ * in the month may have been sold, so it is rolled forward only when asked to.
+ * <p>
+ * Holdings are partitioned by asset name, so each partition walks its months in order
+ * on its own thread. The whole run is then written in one transaction of JDBC batches,
+ * so a failure leaves no month partly revalued, and the change feed is recorded in bulk.
+ * Rows are read without locks, so before writing the run locks them and leaves alone
+ * any holding edited in between, reporting its rows as conflicts.
+ * Runs hold the {@value #REVALUATION_JOB} lease, so at most one is in flight across nodes.
+ */
+@Service
+@Slf4j
+public class RevaluationService {
+
+    static final String REVALUATION_JOB = "revaluation";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final QuoteSource quoteSource;
+    private final ChangeFeedService changeFeedService;
+    private final JobLeaseService jobLeaseService;
+    private final Duration lease;
+    private final int parallelism;
+    private final int batchSize;
+
+    public RevaluationService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            QuoteSource quoteSource,
+            ChangeFeedService changeFeedService,
+            JobLeaseService jobLeaseService,
+            @Value("${moneylog.scheduler.lease-minutes:30}") long leaseMinutes,
+            @Value("${moneylog.revaluation.parallelism:4}") int parallelism,
+            @Value("${moneylog.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.quoteSource = quoteSource;
+        this.changeFeedService = changeFeedService;
+        this.jobLeaseService = jobLeaseService;
+        this.lease = Duration.ofMinutes(leaseMinutes);
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param rollForward also create rows for holdings that have none in a month
+     */
+    public RevaluationResultDTO revalue(String fromMonth, String toMonth, boolean rollForward) {
+        YearMonth from = YearMonth.parse(fromMonth);
+        YearMonth to = YearMonth.parse(toMonth);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("toMonth " + toMonth + " is before fromMonth " + fromMonth);
+        }
+        return jobLeaseService.callExclusive(REVALUATION_JOB, lease, () -> revalue(from, to, rollForward))
+                .orElseThrow(() -> new IllegalStateException("Another revaluation is already running"));
+    }
+
+    private RevaluationResultDTO revalue(YearMonth from, YearMonth to, boolean rollForward) {
+        long startNanos = System.nanoTime();
+        String fromMonth = from.toString();
+        String toMonth = to.toString();
+
+        // months.get(0) is the month before the range: it only seeds the carry
+        List<String> months = new ArrayList<>();
+        for (YearMonth m = from.minusMonths(1); !m.isAfter(to); m = m.plusMonths(1)) {
+            months.add(m.toString());
+        }
+        List<Map<String, BigDecimal>> prices = new ArrayList<>(months.size());
+        for (String month : months) {
+            prices.add(quoteSource.getMonthEndPrices(month));
+        }
+
+        List<Holding> holdings = new ArrayList<>();
+        Map<Table, Map<Long, Row>> snapshots = new EnumMap<>(Table.class);
+        for (Table table : Table.values()) {
+            Map<Long, Row> snapshot = new HashMap<>();
+            holdings.addAll(loadHoldings(table, months, snapshot));
+            snapshots.put(table, snapshot);
+        }
+        int partitionCount = Math.min(parallelism * 4, Math.max(1, holdings.size()));
+        List<List<Holding>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (Holding holding : holdings) {
+            partitions.get(Math.floorMod(holding.name.hashCode(), partitionCount)).add(holding);
+        }
+
+        Counters counters = new Counters();
+        List<Row> updates = new ArrayList<>();
+        List<Row> inserts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitionCount));
+        try {
+            List<Future<Changes>> futures = new ArrayList<>(partitionCount);
+            for (List<Holding> partition : partitions) {
+                futures.add(executor.submit(() -> revaluePartition(partition, months, prices, rollForward, counters)));
+            }
+            for (Future<Changes> future : futures) {
+                Changes changes = future.get();
+                updates.addAll(changes.updates);
+                inserts.addAll(changes.inserts);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Revaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Revaluation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        if (!updates.isEmpty() || !inserts.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Row> updatedRecords = new ArrayList<>();
+                List<Row> insertedRecords = new ArrayList<>();
+                for (Table table : Table.values()) {
+                    Set<String> conflicted = lockAndFindConflicts(table, months, snapshots.get(table));
+                    List<Row> tableUpdates = ofTable(updates, table, conflicted);
+                    List<Row> tableInserts = ofTable(inserts, table, conflicted);
+                    List<Row> updated = batchUpdate(table, tableUpdates);
+                    batchInsert(table, tableInserts);
+                    counters.updated.addAndGet(updated.size());
+                    counters.inserted.addAndGet(tableInserts.size());
+                    counters.conflicts.addAndGet(ofTable(updates, table, Set.of()).size() - updated.size()
+                            + ofTable(inserts, table, Set.of()).size() - tableInserts.size());
+                    if (table == Table.RECORDS) {
+                        updatedRecords = updated;
+                        insertedRecords = tableInserts;
+                    }
+                }
+                // Last, so the change sequence lock is held only until the commit that follows
+                changeFeedService.recordAll(ChangeOperation.UPDATE, toRecords(updatedRecords));
+                changeFeedService.recordAll(ChangeOperation.INSERT, toRecords(insertedRecords));
+            });
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Revalued {}..{}: {} holdings in {} partitions, {} updated, {} inserted, {} unchanged, {} skipped, {} conflicts in {} ms",
+                fromMonth, toMonth, holdings.size(), partitionCount, counters.updated, counters.inserted,
+                counters.unchanged, counters.skipped, counters.conflicts, elapsedMillis);
+        return new RevaluationResultDTO(fromMonth, toMonth, holdings.size(), partitionCount,
+                counters.updated.get(), counters.inserted.get(), counters.unchanged.get(), counters.skipped.get(),
+                counters.conflicts.get(), elapsedMillis);
+    }
+
+    /**
+     * @param snapshot filled with every row read, duplicates included, by id
+     */
+    private Collection<Holding> loadHoldings(Table table, List<String> months, Map<Long, Row> snapshot) {
+        Map<String, Integer> monthIndex = new HashMap<>();
+        for (int i = 0; i < months.size(); i++) {
+            monthIndex.put(months.get(i), i);
+        }
+
+        Map<String, Holding> holdings = new HashMap<>();
+        jdbcTemplate.query(table.select, rs -> {
+            Row row = new Row();
+            row.table = table;
+            row.id = rs.getLong(1);
+            row.month = rs.getString(2);
+            row.name = rs.getString(3);
+            row.category = AssetCategory.valueOf(rs.getString(4));
+            row.amount = Money.toMinor(rs.getBigDecimal(5));
+            row.monthlyGain = Money.toMinor(rs.getBigDecimal(6));
+            row.totalGain = Money.toMinor(rs.getBigDecimal(7));
+            row.loadedAmount = row.amount;
+            row.loadedMonthlyGain = row.monthlyGain;
+            row.loadedTotalGain = row.totalGain;
+            snapshot.put(row.id, row);
+
+            Holding holding = holdings.computeIfAbsent(row.name, name -> new Holding(table, name, months.size()));
+            int index = monthIndex.get(row.month);
+            // Duplicate names within a month: the oldest row is the one revalued
+            if (holding.rows[index] == null) {
+                holding.rows[index] = row;
+            }
+        }, months.get(0), months.get(months.size() - 1));
+        return holdings.values();
+    }
+
+    private Changes revaluePartition(List<Holding> partition, List<String> months,
+                                     List<Map<String, BigDecimal>> prices, boolean rollForward, Counters counters) {
+        Changes changes = new Changes();
+        List<Row> updates = changes.updates;
+        List<Row> inserts = changes.inserts;
+
+        for (Holding holding : partition) {
+            Row carry = holding.rows[0];
+            for (int i = 1; i < months.size(); i++) {
+                Row existing = holding.rows[i];
+                if (existing == null && !rollForward) {
+                    // No row this month: the holding was sold, or its row not entered yet
+                    carry = null;
+                    continue;
+                }
+                BigDecimal previousPrice = prices.get(i - 1).get(holding.name);
+                BigDecimal price = prices.get(i).get(holding.name);
+                if (carry == null || previousPrice == null || price == null) {
+                    if (carry != null || existing != null) {
+                        counters.skipped.incrementAndGet();
+                    }
+                    carry = existing;
+                    continue;
+                }
+
+                long amount = BigDecimal.valueOf(carry.amount)
+                        .multiply(price)
+                        .divide(previousPrice, 0, RoundingMode.HALF_EVEN)
+                        .longValueExact();
+                long monthlyGain = Math.subtractExact(amount, carry.amount);
+                long totalGain = Math.addExact(carry.totalGain, monthlyGain);
+
+                if (existing == null) {
+                    Row row = new Row();
+                    row.table = holding.table;
+                    row.month = months.get(i);
+                    row.name = holding.name;
+                    row.category = carry.category;
+                    row.amount = amount;
+                    row.monthlyGain = monthlyGain;
+                    row.totalGain = totalGain;
+                    inserts.add(row);
+                    carry = row;
+                } else if (existing.amount != amount || existing.monthlyGain != monthlyGain || existing.totalGain != totalGain) {
+                    existing.amount = amount;
+                    existing.monthlyGain = monthlyGain;
+                    existing.totalGain = totalGain;
+                    updates.add(existing);
+                    carry = existing;
+                } else {
+                    counters.unchanged.incrementAndGet();
+                    carry = existing;
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Locks the rows the run read and compares them with what it read. A holding with a row
+     * edited, deleted or added in between is left as it is, since its later months were
+     * computed from a stale carry.
+     *
+     * @return names of the conflicting holdings
+     */
+    private Set<String> lockAndFindConflicts(Table table, List<String> months, Map<Long, Row> snapshot) {
+        Set<String> conflicted = new HashSet<>();
+        Set<Long> seen = new HashSet<>();
+        jdbcTemplate.query(table.select + " FOR UPDATE", rs -> {
+            long id = rs.getLong(1);
+            String name = rs.getString(3);
+            seen.add(id);
+            Row row = snapshot.get(id);
+            if (row == null) {
+                conflicted.add(name);
+            } else if (!row.month.equals(rs.getString(2)) || !row.name.equals(name)
+                    || row.loadedAmount != Money.toMinor(rs.getBigDecimal(5))
+                    || row.loadedMonthlyGain != Money.toMinor(rs.getBigDecimal(6))
+                    || row.loadedTotalGain != Money.toMinor(rs.getBigDecimal(7))) {
+                conflicted.add(row.name);
+                conflicted.add(name);
+            }
+        }, months.get(0), months.get(months.size() - 1));
+        for (Row row : snapshot.values()) {
+            if (!seen.contains(row.id)) {
+                conflicted.add(row.name);
+            }
+        }
+        if (!conflicted.isEmpty()) {
+            log.warn("Revaluation leaves {} holdings in {} as they are: edited while the run was computing",
+                    conflicted.size(), table.name().toLowerCase());
+        }
+        return conflicted;
+    }
+
+    /**
+     * Updates only rows that still hold the values the run read.
+     *
+     * @return the rows that were actually updated; any other row reports a count of 0
+     *         and must not appear in the change feed
+     */
+    private List<Row> batchUpdate(Table table, List<Row> rows) {
+        int[][] counts = jdbcTemplate.batchUpdate(table.update, rows, batchSize, (ps, row) -> {
+            ps.setBigDecimal(1, Money.toMajor(row.amount));
+            ps.setBigDecimal(2, Money.toMajor(row.monthlyGain));
+            ps.setBigDecimal(3, Money.toMajor(row.totalGain));
+            ps.setLong(4, row.id);
+            ps.setBigDecimal(5, Money.toMajor(row.loadedAmount));
+            ps.setBigDecimal(6, Money.toMajor(row.loadedMonthlyGain));
+            ps.setBigDecimal(7, Money.toMajor(row.loadedTotalGain));
+        });
+        List<Row> updated = new ArrayList<>(rows.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 1) {
+                    updated.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return updated;
+    }
+
+    private void batchInsert(Table table, List<Row> rows) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Row> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(table.insert, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Row row = chunk.get(i);
+                            ps.setString(1, row.month);
+                            ps.setString(2, row.name);
+                            ps.setString(3, row.category.name());
+                            ps.setBigDecimal(4, Money.toMajor(row.amount));
+                            ps.setBigDecimal(5, Money.toMajor(row.monthlyGain));
+                            ps.setBigDecimal(6, Money.toMajor(row.totalGain));
+                            if (table.hasCreatedAt) {
+                                ps.setTimestamp(7, createdAt);
+                            }
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            }
+        }
+    }
+
+    private static List<Row> ofTable(List<Row> rows, Table table, Set<String> excludedNames) {
+        List<Row> matching = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.table == table && !excludedNames.contains(row.name)) {
+                matching.add(row);
+            }
+        }
+        return matching;
+    }
+
+    private List<HistoricalAssetRecord> toRecords(List<Row> rows) {
+        List<HistoricalAssetRecord> records = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            HistoricalAssetRecord record = new HistoricalAssetRecord();
+            record.setId(row.id);
+            record.setMonth(row.month);
+            record.setAssetName(row.name);
+            record.setCategory(row.category);
+            record.setAmount(row.amount);
+            record.setMonthlyGain(row.monthlyGain);
+            record.setTotalGain(row.totalGain);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * The tables that hold monthly values, revalued from the same quotes. Only
+     * historical_asset_records is mirrored in the change feed.
+     */
+    private enum Table {
+        RECORDS("historical_asset_records", "asset_name", true),
+        POSITIONS("asset_positions", "name", false);
+
+        final String select;
+        final String update;
+        final String insert;
+        final boolean hasCreatedAt;
+
+        Table(String name, String nameColumn, boolean hasCreatedAt) {
+            this.select = "SELECT id, month, " + nameColumn + ", category, amount, monthly_gain, total_gain " +
+                    "FROM " + name + " WHERE month BETWEEN ? AND ? ORDER BY id";
+            this.update = "UPDATE " + name + " SET amount = ?, monthly_gain = ?, total_gain = ? " +
+                    "WHERE id = ? AND amount = ? AND monthly_gain = ? AND total_gain = ?";
+            this.insert = "INSERT INTO " + name + " (month, " + nameColumn + ", category, amount, monthly_gain, total_gain" +
+                    (hasCreatedAt ? ", created_at) VALUES (?, ?, ?, ?, ?, ?, ?)" : ") VALUES (?, ?, ?, ?, ?, ?)");
+            this.hasCreatedAt = hasCreatedAt;
+        }
+    }
+
+    /** One asset's rows in one table, indexed by position in the month list. */
+    private static final class Holding {
+        final Table table;
+        final String name;
+        final Row[] rows;
+
+        Holding(Table table, String name, int months) {
+            this.table = table;
+            this.name = name;
+            this.rows = new Row[months];
+        }
+    }
+
+    private static final class Row {
+        Table table;
+        long id;
+        String month;
+        String name;
+        AssetCategory category;
+        long amount;
+        long monthlyGain;
+        long totalGain;
+        // As read, for detecting concurrent edits
+        long loadedAmount;
+        long loadedMonthlyGain;
+        long loadedTotalGain;
+    }
+
+    private static final class Changes {
+        final List<Row> updates = new ArrayList<>();
+        final List<Row> inserts = new ArrayList<>();
+    }
+
+    private static final class Counters {
+        final AtomicInteger updated = new AtomicInteger();
+        final AtomicInteger inserted = new AtomicInteger();
+        final AtomicInteger unchanged = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+    }
+}